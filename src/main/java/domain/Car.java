@@ -3,21 +3,49 @@ package domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_car_location", columnList = "location_id"))
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedQuery(name = "Car.findAll", query = "Select t from Car t")
+@NamedQuery(name = "Car.findAllOrdered", query = "Select t from Car t order by t.plate")
+@NamedQuery(name = "Car.findAfter", query = "Select t from Car t where t.plate > :lastId order by t.plate")
+@NamedQuery(name = "Car.findByIds", query = "Select t from Car t where t.plate in :ids")
+@NamedQuery(name = Car.AT_STATION, query = """
+        Select car from Car car
+        where car.location.id = :stationId
+        """)
+@NamedQuery(name = Car.SUMMARIES, query = """
+        Select new domain.projections.CarSummary(car.plate, car.model, car.mileage, car.location.id)
+        from Car car
+        """)
+@NamedNativeQuery(name = Car.OCCUPANCY, query = """
+        Select car.plate,
+               coalesce(sum(case when rental.id is null then 0
+                   else datediff('SECOND', greatest(rental.beginning, :from), least(coalesce(rental.endDate, :to), :to)) end), 0)
+        from Car car
+        left join Rental rental on rental.car_plate = car.plate
+            and rental.beginning < :to and (rental.endDate is null or rental.endDate > :from)
+        group by car.plate
+        order by car.plate
+        """)
 public class Car {
 
+    public static final String AT_STATION = "Car.atStation";
+    public static final String SUMMARIES = "Car.summaries";
+    public static final String OCCUPANCY = "Car.occupancy";
+
     @Id
     @Size(min = 4, max = 9)
     private String plate;
@@ -27,17 +55,27 @@ public class Car {
 
     private String model;
 
+    @Version
+    private Long version;
+
+    public Car(String plate, double mileage, String model, Station location){
+        this.plate = plate;
+        this.mileage = mileage;
+        this.model = model;
+        this.location = location;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
         Car car = (Car) o;
-        return plate != null && Objects.equals(plate, car.plate);
+        return plate != null && Objects.equals(plate, car.getPlate());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return Objects.hashCode(plate);
     }
 
     @ManyToOne
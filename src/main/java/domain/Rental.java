@@ -10,19 +10,105 @@ import org.hibernate.Hibernate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.UUID;
 
 @Builder
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_rental_car_period", columnList = "car_plate, beginning, endDate"),
+        @Index(name = "idx_rental_beginning", columnList = "beginning"),
+        @Index(name = "idx_rental_rental_station", columnList = "rentalStation_id"),
+        @Index(name = "idx_rental_return_station", columnList = "returnStation_id")
+})
+@NamedEntityGraph(name = Rental.SUMMARY_GRAPH)
+@NamedEntityGraph(name = Rental.FULL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "car", subgraph = "car-location"),
+                @NamedAttributeNode("rentalStation"),
+                @NamedAttributeNode("returnStation")
+        },
+        subgraphs = @NamedSubgraph(name = "car-location", attributeNodes = @NamedAttributeNode("location")))
+@NamedQuery(name = "Rental.findAll", query = "Select t from Rental t")
+@NamedQuery(name = "Rental.findAllOrdered", query = "Select t from Rental t order by t.id")
+@NamedQuery(name = "Rental.findAfter", query = "Select t from Rental t where t.id > :lastId order by t.id")
+@NamedQuery(name = "Rental.findByIds", query = "Select t from Rental t where t.id in :ids")
+@NamedQuery(name = Rental.OVERLAPPING, query = """
+        Select rental.id from Rental rental
+        where rental.car.plate = :plate and
+        (rental.end is null or rental.end > :start)
+        and rental.beginning < :end
+        and (:rentalId is null or rental.id <> :rentalId)
+        """)
+@NamedQuery(name = Rental.OVERLAPPING_OPEN, query = """
+        Select rental.id from Rental rental
+        where rental.car.plate = :plate and
+        (rental.end is null or rental.end > :start)
+        and (:rentalId is null or rental.id <> :rentalId)
+        """)
+@NamedQuery(name = Rental.PERIODS, query = """
+        Select new domain.projections.RentalPeriod(rental.id, rental.car.plate, rental.beginning, rental.end)
+        from Rental rental
+        where rental.end is null or rental.end > :after
+        """)
+@NamedQuery(name = Rental.PERIODS_OF_CARS, query = """
+        Select new domain.projections.RentalPeriod(rental.id, rental.car.plate, rental.beginning, rental.end)
+        from Rental rental
+        where rental.car.plate in :plates
+            and (rental.end is null or rental.end > :after)
+        """)
+@NamedQuery(name = Rental.SUMMARIES, query = """
+        Select new domain.projections.RentalSummary(rental.id, rental.car.plate, rental.beginning, rental.end, rental.drivenKm)
+        from Rental rental
+        """)
+@NamedQuery(name = Rental.MILEAGE_PER_CAR, query = """
+        Select new domain.projections.CarMileage(rental.car.plate, count(rental.id), coalesce(sum(rental.drivenKm), 0.0))
+        from Rental rental
+        where rental.beginning >= :from and rental.beginning < :to
+        group by rental.car.plate
+        order by rental.car.plate
+        """)
+@NamedQuery(name = Rental.MILEAGE_PER_MONTH, query = """
+        Select new domain.projections.MonthlyMileage(year(rental.beginning), month(rental.beginning), count(rental.id), coalesce(sum(rental.drivenKm), 0.0))
+        from Rental rental
+        where rental.beginning >= :from and rental.beginning < :to
+        group by year(rental.beginning), month(rental.beginning)
+        order by year(rental.beginning), month(rental.beginning)
+        """)
+@NamedNativeQuery(name = Rental.AVERAGE_DURATION, query = """
+        Select avg(cast(datediff('SECOND', rental.beginning, rental.endDate) as double precision))
+        from Rental rental
+        where rental.endDate is not null
+            and rental.beginning >= :from and rental.beginning < :to
+        """)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Rental {
 
+    public static final String SUMMARY_GRAPH = "rental-summary";
+    public static final String FULL_GRAPH = "rental-full";
+
+    public static final String OVERLAPPING = "Rental.overlapping";
+    public static final String OVERLAPPING_OPEN = "Rental.overlappingOpen";
+    public static final String PERIODS = "Rental.periods";
+    public static final String PERIODS_OF_CARS = "Rental.periodsOfCars";
+    public static final String SUMMARIES = "Rental.summaries";
+    public static final String MILEAGE_PER_CAR = "Rental.mileagePerCar";
+    public static final String MILEAGE_PER_MONTH = "Rental.mileagePerMonth";
+    public static final String AVERAGE_DURATION = "Rental.averageDuration";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rental_seq")
     private Long id;
 
+    @Builder.Default
+    @Column(nullable = false, unique = true, updatable = false)
+    private UUID uuid = UUID.randomUUID();
+
+    @Version
+    private Long version;
+
     private Double drivenKm;
 
     private LocalDateTime beginning;
@@ -30,13 +116,13 @@ public class Rental {
     @Column(name = "endDate")
     private LocalDateTime end;
 
-    @OneToOne(cascade = {CascadeType.MERGE})
+    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE})
     private Car car;
 
-    @ManyToOne(cascade = {CascadeType.MERGE})
+    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE})
     private Station rentalStation;
 
-    @ManyToOne(cascade = {CascadeType.MERGE})
+    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE})
     private Station returnStation;
 
 
@@ -59,11 +145,11 @@ public class Rental {
         if (this == o) return true;
         if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
         Rental rental = (Rental) o;
-        return id != null && Objects.equals(id, rental.id);
+        return uuid != null && Objects.equals(uuid, rental.getUuid());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return Objects.hashCode(uuid);
     }
 }
@@ -0,0 +1,17 @@
+package domain;
+
+public enum RentalGraph {
+
+    SUMMARY(Rental.SUMMARY_GRAPH),
+    FULL(Rental.FULL_GRAPH);
+
+    private final String graphName;
+
+    RentalGraph(String graphName){
+        this.graphName = graphName;
+    }
+
+    public String graphName(){
+        return graphName;
+    }
+}
@@ -1,35 +1,65 @@
 package domain;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.UniqueElements;
 
 import java.util.Objects;
+import java.util.UUID;
 
-@AllArgsConstructor
+@Getter
 @Entity
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NoArgsConstructor
+@NamedQuery(name = "Station.findAll", query = "Select t from Station t")
+@NamedQuery(name = "Station.findAllOrdered", query = "Select t from Station t order by t.id")
+@NamedQuery(name = "Station.findAfter", query = "Select t from Station t where t.id > :lastId order by t.id")
+@NamedQuery(name = "Station.findByIds", query = "Select t from Station t where t.id in :ids")
+@NamedQuery(name = Station.SUMMARIES, query = """
+        Select new domain.projections.StationSummary(station.id, station.title)
+        from Station station
+        """)
+@NamedQuery(name = Station.RENTALS_PER_STATION, query = """
+        Select new domain.projections.StationRentals(station.id, station.title, count(rental.id), coalesce(sum(rental.drivenKm), 0.0))
+        from Station station
+        left join Rental rental on rental.rentalStation = station
+            and rental.beginning >= :from and rental.beginning < :to
+        group by station.id, station.title
+        order by station.id
+        """)
 public class Station {
 
+    public static final String SUMMARIES = "Station.summaries";
+    public static final String RENTALS_PER_STATION = "Station.rentalsPerStation";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "station_seq")
     private Long id;
 
     private String title;
 
+    @Column(nullable = false, unique = true, updatable = false)
+    private UUID uuid = UUID.randomUUID();
+
+    public Station(Long id, String title){
+        this.id = id;
+        this.title = title;
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
         Station station = (Station) o;
-        return id != null && Objects.equals(id, station.id);
+        return uuid != null && Objects.equals(uuid, station.getUuid());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return Objects.hashCode(uuid);
     }
 }
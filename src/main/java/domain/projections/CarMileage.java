@@ -0,0 +1,4 @@
+package domain.projections;
+
+public record CarMileage(String plate, Long rentals, Double drivenKm) {
+}
@@ -0,0 +1,4 @@
+package domain.projections;
+
+public record CarOccupancy(String plate, double occupancy) {
+}
@@ -0,0 +1,4 @@
+package domain.projections;
+
+public record CarSummary(String plate, String model, double mileage, Long stationId) {
+}
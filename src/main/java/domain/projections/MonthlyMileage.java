@@ -0,0 +1,4 @@
+package domain.projections;
+
+public record MonthlyMileage(Integer year, Integer month, Long rentals, Double drivenKm) {
+}
@@ -0,0 +1,17 @@
+package domain.projections;
+
+import domain.Rental;
+
+import java.time.LocalDateTime;
+
+public record RentalPeriod(Long rentalId, String plate, LocalDateTime beginning, LocalDateTime end) {
+
+    public static RentalPeriod of(Rental rental){
+        return new RentalPeriod(rental.getId(), rental.getCar().getPlate(), rental.getBeginning(), rental.getEnd());
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end){
+        return (end == null || beginning.isBefore(end)) &&
+                (this.end == null || this.end.isAfter(start));
+    }
+}
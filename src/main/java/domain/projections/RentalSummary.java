@@ -0,0 +1,6 @@
+package domain.projections;
+
+import java.time.LocalDateTime;
+
+public record RentalSummary(Long id, String plate, LocalDateTime beginning, LocalDateTime end, Double drivenKm) {
+}
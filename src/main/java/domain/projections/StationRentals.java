@@ -0,0 +1,4 @@
+package domain.projections;
+
+public record StationRentals(Long stationId, String title, Long rentals, Double drivenKm) {
+}
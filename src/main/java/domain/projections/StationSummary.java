@@ -0,0 +1,4 @@
+package domain.projections;
+
+public record StationSummary(Long id, String title) {
+}
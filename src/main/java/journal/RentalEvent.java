@@ -0,0 +1,15 @@
+package journal;
+
+import java.time.LocalDateTime;
+
+public sealed interface RentalEvent {
+
+    record Booked(long rentalId, String plate, Long stationId, LocalDateTime beginning, LocalDateTime end) implements RentalEvent {
+    }
+
+    record Finished(long rentalId, String plate, long stationId, LocalDateTime end, double drivenKm) implements RentalEvent {
+    }
+
+    record Relocated(String plate, Long stationId) implements RentalEvent {
+    }
+}
@@ -0,0 +1,321 @@
+package journal;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of {@link RentalEvent}s written through a memory-mapped file.
+ * Every record is {@code [length][crc32][payload]}; a record with length 0 or a wrong checksum ends the log.
+ * {@link #append(RentalEvent)} returns once the record is forced to disk. A single flusher thread forces
+ * everything written so far, so appenders arriving during a force share the next one (group commit).
+ * {@link #write(Collection)} does not wait for the force, for callers that keep their state elsewhere.
+ */
+public class RentalJournal implements Closeable {
+
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final byte BOOKED = 1;
+    private static final byte FINISHED = 2;
+    private static final byte RELOCATED = 3;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int regionSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final Condition forced = lock.newCondition();
+    private final Thread flusher;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long size;
+    private long forcedSize;
+    private boolean closed;
+
+    public RentalJournal(Path file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    public RentalJournal(Path file, int regionSize) throws IOException {
+        if(regionSize <= HEADER_SIZE)
+            throw new IllegalArgumentException();
+        this.file = file;
+        this.regionSize = regionSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = replay(event -> {});
+        this.forcedSize = size;
+        map(size, regionSize);
+        this.flusher = Thread.ofPlatform()
+                .name("rental-journal-flusher")
+                .daemon()
+                .start(this::flushLoop);
+    }
+
+    public boolean isEmpty(){
+        lock.lock();
+        try {
+            return size == 0;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void append(RentalEvent event){
+        appendAll(List.of(event));
+    }
+
+    public void appendAll(Collection<? extends RentalEvent> events){
+        if(events.isEmpty())
+            return;
+        var payloads = encode(events);
+
+        lock.lock();
+        try {
+            long end = put(payloads);
+            // close() forces everything written, so this also ends when the journal is closed meanwhile
+            while(forcedSize < end)
+                forced.awaitUninterruptibly();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // returns once the records are in the mapped file, the flusher forces them right after. A crash before that
+    // loses at most the last records, replay stops at the first one that is incomplete
+    public void write(Collection<? extends RentalEvent> events){
+        if(events.isEmpty())
+            return;
+        var payloads = encode(events);
+
+        lock.lock();
+        try {
+            put(payloads);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held, returns the offset after the last record
+    private long put(List<byte[]> payloads){
+        if(closed)
+            throw new IllegalStateException("journal is closed");
+
+        var crc = new CRC32();
+        try {
+            for(var payload : payloads){
+                int recordSize = HEADER_SIZE + payload.length;
+                if(size + recordSize > regionStart + region.capacity())
+                    remap(recordSize);
+                crc.reset();
+                crc.update(payload);
+                int offset = (int) (size - regionStart);
+                region.putInt(offset, payload.length);
+                region.putInt(offset + Integer.BYTES, (int) crc.getValue());
+                region.put(offset + HEADER_SIZE, payload);
+                size += recordSize;
+            }
+        }
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        written.signal();
+        return size;
+    }
+
+    // reads every complete record from the start of the file, returns the offset after the last one
+    public long replay(Consumer<? super RentalEvent> consumer) throws IOException {
+        long offset = 0;
+        try (var reader = FileChannel.open(file, StandardOpenOption.READ);
+             var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(reader)))) {
+            var crc = new CRC32();
+            while(true){
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    if(length <= 0)
+                        return offset;
+                    checksum = in.readInt();
+                    payload = in.readNBytes(length);
+                }
+                catch (EOFException e){
+                    return offset;
+                }
+                if(payload.length < length)
+                    return offset;
+                crc.reset();
+                crc.update(payload);
+                if((int) crc.getValue() != checksum)
+                    return offset;
+                consumer.accept(decode(payload));
+                offset += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if(closed)
+                return;
+            closed = true;
+            written.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            region.force();
+            forcedSize = size;
+            forced.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+        region = null;
+        channel.close();
+    }
+
+    private void flushLoop(){
+        while(true){
+            MappedByteBuffer toForce;
+            int from;
+            int to;
+            long end;
+            lock.lock();
+            try {
+                while(forcedSize == size && !closed)
+                    written.awaitUninterruptibly();
+                if(closed)
+                    return;
+                toForce = region;
+                from = (int) Math.max(forcedSize - regionStart, 0);
+                end = size;
+                to = (int) (end - regionStart);
+            }
+            finally {
+                lock.unlock();
+            }
+
+            toForce.force(from, to - from);
+
+            lock.lock();
+            try {
+                forcedSize = Math.max(forcedSize, end);
+                forced.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // called with the lock held, the old region is forced so only the new one is left to the flusher
+    private void remap(int recordSize) throws IOException {
+        region.force();
+        forcedSize = size;
+        forced.signalAll();
+        map(size, Math.max(regionSize, recordSize));
+    }
+
+    private void map(long start, int length) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+        regionStart = start;
+    }
+
+    private static List<byte[]> encode(Collection<? extends RentalEvent> events){
+        return events.stream()
+                .map(RentalJournal::encode)
+                .toList();
+    }
+
+    private static byte[] encode(RentalEvent event){
+        var bytes = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(bytes)) {
+            switch (event) {
+                case RentalEvent.Booked booked -> {
+                    out.writeByte(BOOKED);
+                    out.writeLong(booked.rentalId());
+                    out.writeUTF(booked.plate());
+                    writeNullable(out, booked.stationId());
+                    writeTime(out, booked.beginning());
+                    writeTime(out, booked.end());
+                }
+                case RentalEvent.Finished finished -> {
+                    out.writeByte(FINISHED);
+                    out.writeLong(finished.rentalId());
+                    out.writeUTF(finished.plate());
+                    out.writeLong(finished.stationId());
+                    writeTime(out, finished.end());
+                    out.writeDouble(finished.drivenKm());
+                }
+                case RentalEvent.Relocated relocated -> {
+                    out.writeByte(RELOCATED);
+                    out.writeUTF(relocated.plate());
+                    writeNullable(out, relocated.stationId());
+                }
+            }
+        }
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static RentalEvent decode(byte[] payload) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        return switch (type) {
+            case BOOKED -> new RentalEvent.Booked(in.readLong(), in.readUTF(), readNullable(in), readTime(in), readTime(in));
+            case FINISHED -> new RentalEvent.Finished(in.readLong(), in.readUTF(), in.readLong(), readTime(in), in.readDouble());
+            case RELOCATED -> new RentalEvent.Relocated(in.readUTF(), readNullable(in));
+            default -> throw new IOException("unknown event type " + type);
+        };
+    }
+
+    private static void writeNullable(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null)
+            out.writeLong(value);
+    }
+
+    private static Long readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if(time != null){
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
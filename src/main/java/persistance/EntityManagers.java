@@ -0,0 +1,116 @@
+package persistance;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hands out the {@link EntityManager} of the unit of work running on the current thread, or a new one outside of it.
+ * Repositories get theirs from {@link #open()} and give it back with {@link #release(EntityManager)}, which only
+ * closes managers that are not bound to a unit of work. {@link #inTransaction(Function)} starts a unit of work,
+ * or joins the running one, so nested calls share one persistence context, one connection and one commit.
+ */
+public class EntityManagers {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ThreadLocal<Unit> current = new ThreadLocal<>();
+
+    public EntityManagers(EntityManagerFactory entityManagerFactory){
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public EntityManagerFactory getEntityManagerFactory(){
+        return entityManagerFactory;
+    }
+
+    public boolean isBound(){
+        return current.get() != null;
+    }
+
+    public EntityManager open(){
+        var unit = current.get();
+        return unit == null ? entityManagerFactory.createEntityManager() : unit.entityManager;
+    }
+
+    public void release(EntityManager entityManager){
+        var unit = current.get();
+        if(unit == null || unit.entityManager != entityManager)
+            entityManager.close();
+    }
+
+    public <R> R inTransaction(Function<EntityManager, R> work){
+        if(current.get() != null)
+            return work.apply(current.get().entityManager);
+
+        var unit = new Unit(entityManagerFactory.createEntityManager());
+        var entityManager = unit.entityManager;
+        current.set(unit);
+        var committed = false;
+        try{
+            entityManager.getTransaction().begin();
+            var result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            committed = true;
+            return result;
+        }
+        catch (RuntimeException | Error e){
+            if(entityManager.getTransaction().isActive())
+                entityManager.getTransaction().rollback();
+            throw e;
+        }
+        finally {
+            current.remove();
+            entityManager.close();
+            unit.complete(committed);
+        }
+    }
+
+    // outside of a unit of work the callback runs right away
+    public void afterCommit(Runnable callback){
+        var unit = current.get();
+        if(unit == null)
+            callback.run();
+        else
+            unit.afterCommit.add(callback);
+    }
+
+    // outside of a unit of work there is nothing to roll back and the callback is dropped
+    public void afterRollback(Runnable callback){
+        var unit = current.get();
+        if(unit != null)
+            unit.afterRollback.add(callback);
+    }
+
+    // runs after the commit or rollback callbacks, right away outside of a unit of work
+    public void afterCompletion(Runnable callback){
+        var unit = current.get();
+        if(unit == null)
+            callback.run();
+        else
+            unit.afterCompletion.add(callback);
+    }
+
+    private static class Unit {
+
+        private final EntityManager entityManager;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private final List<Runnable> afterRollback = new ArrayList<>();
+        private final List<Runnable> afterCompletion = new ArrayList<>();
+
+        private Unit(EntityManager entityManager){
+            this.entityManager = entityManager;
+        }
+
+        private void complete(boolean committed){
+            try{
+                (committed ? afterCommit : afterRollback).forEach(Runnable::run);
+            }
+            finally {
+                afterCompletion.forEach(Runnable::run);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package persistance;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+public class HikariConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final String HIKARI_PREFIX = "hibernate.hikari.";
+
+    private HikariDataSource dataSource;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        var properties = new Properties();
+        settings.forEach((key, value) -> {
+            if (key.startsWith(HIKARI_PREFIX))
+                properties.setProperty(key.substring(HIKARI_PREFIX.length()), value.toString());
+        });
+
+        var config = new HikariConfig(properties);
+        copy(settings, "jakarta.persistence.jdbc.url", config::setJdbcUrl);
+        copy(settings, "jakarta.persistence.jdbc.driver", config::setDriverClassName);
+        copy(settings, "jakarta.persistence.jdbc.user", config::setUsername);
+        copy(settings, "jakarta.persistence.jdbc.password", config::setPassword);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        dataSource.close();
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(getClass()) || unwrapType.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(getClass()))
+            return (T) this;
+        if (unwrapType.isAssignableFrom(HikariDataSource.class))
+            return (T) dataSource;
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    private static void copy(Map<String, Object> settings, String key, Consumer<String> target) {
+        var value = settings.get(key);
+        if (value != null)
+            target.accept(value.toString());
+    }
+}
@@ -0,0 +1,20 @@
+package persistance;
+
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import javax.cache.spi.CachingProvider;
+
+/**
+ * JCache region factory with a cache manager of its own per session factory. Providers hand out one
+ * manager per URI and class loader, so two databases configured from the same {@code ehcache.xml}
+ * would read each other's cached rows, and closing one factory would close the other's caches.
+ * A class loader that only delegates keeps the managers apart.
+ */
+public class IsolatedJCacheRegionFactory extends JCacheRegionFactory {
+
+    @Override
+    protected ClassLoader getClassLoader(CachingProvider cachingProvider) {
+        return new ClassLoader(cachingProvider.getDefaultClassLoader()) {
+        };
+    }
+}
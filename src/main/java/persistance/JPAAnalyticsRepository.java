@@ -0,0 +1,116 @@
+package persistance;
+
+import domain.Car;
+import domain.Rental;
+import domain.Station;
+import domain.projections.CarMileage;
+import domain.projections.CarOccupancy;
+import domain.projections.MonthlyMileage;
+import domain.projections.StationRentals;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// all aggregates cover the rentals beginning in [from, to), occupancy every rental overlapping it
+public class JPAAnalyticsRepository {
+
+    public JPAAnalyticsRepository(EntityManagerFactory entityManagerFactory){
+        this(new EntityManagers(entityManagerFactory));
+    }
+
+    public JPAAnalyticsRepository(EntityManagers entityManagers){
+        this.entityManagers = entityManagers;
+    }
+
+    private EntityManagers entityManagers;
+
+    public List<StationRentals> countRentalsPerStation(LocalDateTime from, LocalDateTime to){
+        checkWindow(from,to);
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Station.RENTALS_PER_STATION,StationRentals.class)
+                    .setParameter("from",from)
+                    .setParameter("to",to)
+                    .setHint(HibernateHints.HINT_READ_ONLY,true)
+                    .getResultList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
+
+    public List<CarMileage> findMileagePerCar(LocalDateTime from, LocalDateTime to){
+        checkWindow(from,to);
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Rental.MILEAGE_PER_CAR,CarMileage.class)
+                    .setParameter("from",from)
+                    .setParameter("to",to)
+                    .setHint(HibernateHints.HINT_READ_ONLY,true)
+                    .getResultList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
+
+    public List<MonthlyMileage> findMileagePerMonth(LocalDateTime from, LocalDateTime to){
+        checkWindow(from,to);
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Rental.MILEAGE_PER_MONTH,MonthlyMileage.class)
+                    .setParameter("from",from)
+                    .setParameter("to",to)
+                    .setHint(HibernateHints.HINT_READ_ONLY,true)
+                    .getResultList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
+
+    // share of the window each car was rented, ongoing rentals count up to the end of the window
+    @SuppressWarnings("unchecked")
+    public List<CarOccupancy> findOccupancy(LocalDateTime from, LocalDateTime to){
+        checkWindow(from,to);
+        var entityManager = entityManagers.open();
+        try{
+            double window = Duration.between(from,to).toSeconds();
+            List<Object[]> rows = entityManager.createNamedQuery(Car.OCCUPANCY)
+                    .setParameter("from",from)
+                    .setParameter("to",to)
+                    .getResultList();
+            return rows.stream()
+                    .map(row -> new CarOccupancy((String) row[0], ((Number) row[1]).doubleValue() / window))
+                    .toList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
+
+    public Optional<Duration> averageRentalDuration(LocalDateTime from, LocalDateTime to){
+        checkWindow(from,to);
+        var entityManager = entityManagers.open();
+        try{
+            var seconds = (Number) entityManager.createNamedQuery(Rental.AVERAGE_DURATION)
+                    .setParameter("from",from)
+                    .setParameter("to",to)
+                    .getSingleResult();
+            return Optional.ofNullable(seconds)
+                    .map(average -> Duration.ofMillis(Math.round(average.doubleValue() * 1000)));
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
+
+    private static void checkWindow(LocalDateTime from, LocalDateTime to){
+        if(from == null || to == null || !from.isBefore(to))
+            throw new IllegalArgumentException();
+    }
+}
@@ -2,38 +2,55 @@ package persistance;
 
 import domain.Car;
 import domain.Station;
+import domain.projections.CarSummary;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.NoResultException;
+import org.hibernate.jpa.HibernateHints;
 
 import javax.swing.tree.ExpandVetoException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public class JPACarRepository {
     public JPACarRepository(EntityManagerFactory entityManagerFactory){
-        this.entityManagerFactory = entityManagerFactory;
+        this(new EntityManagers(entityManagerFactory));
     }
 
-    private EntityManagerFactory entityManagerFactory;
+    public JPACarRepository(EntityManagers entityManagers){
+        this.entityManagers = entityManagers;
+    }
+
+    private EntityManagers entityManagers;
 
     public Collection<Car> getCarsAtStation(Station station){
-        var entityManager = entityManagerFactory.createEntityManager();
+        if(station == null || station.getId() == null)
+            return List.of();
+
+        var entityManager = entityManagers.open();
 
         try{
-            String jpql = """
-                    Select car from Car car\040
-                    where car.location = :station
-                    """;
-            var query = entityManager.createQuery(jpql,Car.class)
-                    .setParameter("station",station);
+            var query = entityManager.createNamedQuery(Car.AT_STATION,Car.class)
+                    .setParameter("stationId",station.getId())
+                    .setHint(HibernateHints.HINT_CACHEABLE,true);
             return query.getResultList();
         }
         finally {
-            entityManager.close();
+            entityManagers.release(entityManager);
         }
     }
 
-
+    public List<CarSummary> findSummaries(){
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Car.SUMMARIES,CarSummary.class)
+                    .setHint(HibernateHints.HINT_READ_ONLY,true)
+                    .getResultList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
 }
@@ -1,64 +1,285 @@
 package persistance;
 
-import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class JPAGenericRepository {
 
+    private static final int SCROLL_CHUNK_SIZE = 500;
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+    private static final String BATCH_SIZE_PROPERTY = "hibernate.jdbc.batch_size";
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    // every entity declares these named queries as <entity>.<query>, lastId and ids are bound to its id
+    private static final String FIND_ALL = "findAll";
+    private static final String FIND_ALL_ORDERED = "findAllOrdered";
+    private static final String FIND_AFTER = "findAfter";
+    private static final String FIND_BY_IDS = "findByIds";
+
     public JPAGenericRepository(EntityManagerFactory entityManagerFactory){
-        this.entityManagerFactory = entityManagerFactory;
+        this(new EntityManagers(entityManagerFactory));
+    }
+
+    public JPAGenericRepository(EntityManagers entityManagers){
+        this.entityManagers = entityManagers;
+        this.entityManagerFactory = entityManagers.getEntityManagerFactory();
     }
 
+    private EntityManagers entityManagers;
+
     private EntityManagerFactory entityManagerFactory;
 
     public <T> T safe(T entity){
-        var entityManager = entityManagerFactory.createEntityManager();
-        try{
-            entityManager.getTransaction().begin();
+        return upsert(entity);
+    }
+
+    public <T> T insert(T entity){
+        return entityManagers.inTransaction(entityManager -> {
             entityManager.persist(entity);
-            entityManager.getTransaction().commit();
+            return entity;
+        });
+    }
+
+    public <T> T update(T entity){
+        if(identifier(entity) == null)
+            throw new IllegalArgumentException();
+        return entityManagers.inTransaction(entityManager -> entityManager.merge(entity));
+    }
+
+    // picks persist or merge up front instead of trying persist and merging after a rollback
+    public <T> T upsert(T entity){
+        var id = identifier(entity);
+        if(id == null)
+            return insert(entity);
+        var persister = persister(entity.getClass());
+        if(persister.isVersioned() && persister.getVersion(entity) != null)
+            return update(entity);
+
+        return entityManagers.inTransaction(entityManager ->
+                upsert(entityManager, persister, entity, entityManager.find(entity.getClass(), id)));
+    }
+
+    // returns what was stored, the given entities for inserts and the merged copies with their new version for updates
+    public <T> List<T> safeAll(Class<T> tClass, List<T> entities){
+        if(entities.isEmpty())
+            return entities;
+
+        int batchSize = batchSize();
+        var persister = persister(tClass);
+        var saved = new ArrayList<T>(entities.size());
+        entityManagers.inTransaction(entityManager -> {
+            for(int from = 0; from < entities.size(); from += batchSize){
+                var chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+                var existing = findExisting(entityManager, tClass, chunk);
+                var managed = new ArrayList<T>(chunk.size());
+                for(var entity : chunk){
+                    var id = identifier(entity);
+                    managed.add(upsert(entityManager, persister, entity, id == null ? null : existing.get(id)));
+                }
+                entityManager.flush();
+                // detaching only the chunk keeps whatever else a surrounding unit of work has loaded
+                managed.forEach(entityManager::detach);
+                saved.addAll(managed);
+            }
+            return null;
+        });
+        return saved;
+    }
+
+    public <T> Collection<T> findAll(Class<T> tClass){
+        return findAll(tClass,null);
+    }
+
+    public <T> Collection<T> findAll(Class<T> tClass, String graphName){
+        var entityManager = entityManagers.open();
+        try{
+            var query = entityManager.createNamedQuery(queryName(tClass,FIND_ALL),tClass)
+                    .setHint(HibernateHints.HINT_CACHEABLE,tClass.isAnnotationPresent(Cacheable.class));
+            if(graphName != null)
+                query.setHint(FETCH_GRAPH,entityManager.getEntityGraph(graphName));
+            return query.getResultList();
         }
-        catch (EntityExistsException e){
-            entityManager.getTransaction().rollback();
-            entityManager.clear();
-            entityManager.getTransaction().begin();
-            entityManager.merge(entity);
-            entityManager.getTransaction().commit();
+        finally {
+            entityManagers.release(entityManager);
         }
-        catch (Exception e){
-            entityManager.getTransaction().rollback();
-            throw e;
+    }
+
+    public <T> List<T> findAfter(Class<T> tClass, Object lastId, int limit){
+        return findAfter(tClass,lastId,limit,null);
+    }
+
+    public <T> List<T> findAfter(Class<T> tClass, Object lastId, int limit, String graphName){
+        if(limit <= 0)
+            throw new IllegalArgumentException();
+
+        var entityManager = entityManagers.open();
+        try{
+            TypedQuery<T> query;
+            if(lastId == null)
+                query = entityManager.createNamedQuery(queryName(tClass,FIND_ALL_ORDERED),tClass);
+            else
+                query = entityManager.createNamedQuery(queryName(tClass,FIND_AFTER),tClass)
+                        .setParameter("lastId",lastId);
+            if(graphName != null)
+                query.setHint(FETCH_GRAPH,entityManager.getEntityGraph(graphName));
+            return query.setMaxResults(limit)
+                    .getResultList();
         }
         finally {
-            entityManager.close();
+            entityManagers.release(entityManager);
         }
-        return entity;
     }
 
-    public <T> Collection<T> findAll(Class<T> tClass){
-        var entityManager = entityManagerFactory.createEntityManager();
+    public <T> Stream<T> streamAll(Class<T> tClass){
+        return streamAll(tClass,null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Stream<T> streamAll(Class<T> tClass, String graphName){
+        var entityManager = entityManagers.open();
         try{
-            String jpql = """
-                        Select t from %s t
-                    """.formatted(tClass.getSimpleName());
-            var query = entityManager.createQuery(jpql,tClass);
-            return query.getResultList();
+            var typedQuery = entityManager.createNamedQuery(queryName(tClass,FIND_ALL_ORDERED),tClass);
+            if(graphName != null)
+                typedQuery.setHint(FETCH_GRAPH,entityManager.getEntityGraph(graphName));
+            Query<T> query = typedQuery.unwrap(Query.class);
+            ScrollableResults<T> results = query
+                    .setFetchSize(SCROLL_CHUNK_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            // rows stay in the persistence context of a unit of work, the caller may still use them as managed
+            // entities, so a stream inside one is not constant-memory
+            var detaching = entityManagers.isBound() ? null : entityManager;
+            return StreamSupport.stream(new ScrollingSpliterator<>(results, detaching), false)
+                    .onClose(() -> {
+                        results.close();
+                        entityManagers.release(entityManager);
+                    });
         }
-        finally {
-            entityManager.close();
+        catch (RuntimeException e){
+            entityManagers.release(entityManager);
+            throw e;
         }
     }
 
     public <K,T> Optional<T> findByID(K key, Class<T> tClass){
-        var entityManager = entityManagerFactory.createEntityManager();
+        return findByID(key,tClass,null);
+    }
+
+    public <K,T> Optional<T> findByID(K key, Class<T> tClass, String graphName){
+        var entityManager = entityManagers.open();
         try{
-            return Optional.ofNullable(entityManager.find(tClass,key));
+            if(graphName == null)
+                return Optional.ofNullable(entityManager.find(tClass,key));
+            Map<String, Object> hints = Map.of(FETCH_GRAPH,entityManager.getEntityGraph(graphName));
+            return Optional.ofNullable(entityManager.find(tClass,key,hints));
         }
         finally {
-            entityManager.close();
+            entityManagers.release(entityManager);
+        }
+    }
+
+    // loads the stored rows of a chunk in one query, merging onto them later needs no further selects
+    private <T> Map<Object, T> findExisting(EntityManager entityManager, Class<T> tClass, List<T> entities){
+        var ids = entities.stream()
+                .map(this::identifier)
+                .filter(Objects::nonNull)
+                .toList();
+        if(ids.isEmpty())
+            return Map.of();
+
+        var existing = new HashMap<Object, T>();
+        for(var entity : entityManager.createNamedQuery(queryName(tClass,FIND_BY_IDS),tClass)
+                .setParameter("ids",ids)
+                .getResultList())
+            existing.put(identifier(entity), entity);
+        return existing;
+    }
+
+    // persists what is not stored yet, otherwise merges the way upsert does, stored is the row with the entity's id
+    private static <T> T upsert(EntityManager entityManager, EntityPersister persister, T entity, Object stored){
+        if(stored == null){
+            entityManager.persist(entity);
+            return entity;
+        }
+        if(!persister.isVersioned() || persister.getVersion(entity) == null)
+            copyPersistedState(persister, stored, entity);
+        return entityManager.merge(entity);
+    }
+
+    private EntityPersister persister(Class<?> tClass){
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getRuntimeMetamodels()
+                .getMappingMetamodel()
+                .getEntityDescriptor(tClass);
+    }
+
+    // the version and columns that are never updated, like the uuid equality is based on, keep their stored value
+    private static void copyPersistedState(EntityPersister persister, Object existing, Object entity){
+        if(persister.isVersioned())
+            persister.setValue(entity, persister.getVersionProperty(), persister.getVersion(existing));
+        var updateable = persister.getPropertyUpdateability();
+        for(int property = 0; property < updateable.length; property++)
+            if(!updateable[property])
+                persister.setValue(entity, property, persister.getValue(existing, property));
+    }
+
+    private Object identifier(Object entity){
+        return entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    private int batchSize(){
+        var batchSize = entityManagerFactory.getProperties().get(BATCH_SIZE_PROPERTY);
+        return batchSize == null ? DEFAULT_BATCH_SIZE : Integer.parseInt(batchSize.toString());
+    }
+
+    private static String queryName(Class<?> tClass, String query){
+        return tClass.getSimpleName() + "." + query;
+    }
+
+    private static class ScrollingSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final ScrollableResults<T> results;
+        private final EntityManager entityManager;
+
+        ScrollingSpliterator(ScrollableResults<T> results, EntityManager entityManager){
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.results = results;
+            this.entityManager = entityManager;
+        }
+
+        // rows are detached one by one, clearing the whole context mid-scroll breaks the
+        // associations Hibernate still holds for the following rows. The cars and stations
+        // the rows reach stay managed, so the context grows with those, not with the rows
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if(!results.next())
+                return false;
+            var row = results.get();
+            action.accept(row);
+            if(entityManager != null)
+                entityManager.detach(row);
+            return true;
         }
     }
 }
@@ -3,73 +3,150 @@ package persistance;
 import domain.Car;
 import domain.Rental;
 import domain.Station;
+import domain.projections.RentalPeriod;
+import domain.projections.RentalSummary;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import org.hibernate.Hibernate;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public class JPARentalRepository {
+
+    private static final int MAX_FINISH_ATTEMPTS = 5;
+
     public JPARentalRepository(EntityManagerFactory entityManagerFactory){
-        this.entityManagerFactory = entityManagerFactory;
+        this(new EntityManagers(entityManagerFactory));
+    }
+
+    public JPARentalRepository(EntityManagers entityManagers){
+        this.entityManagers = entityManagers;
     }
 
-    private EntityManagerFactory entityManagerFactory;
+    private EntityManagers entityManagers;
 
 
     public Rental finish(Rental rental, Station station, double drivenKm){
 
-        if(station == null)
+        if(station == null || station.getId() == null)
             throw new IllegalArgumentException();
         if(drivenKm == Double.POSITIVE_INFINITY || Double.isNaN(drivenKm) || drivenKm <= 0)
             throw new IllegalArgumentException();
-        if(rental.getEnd() != null)
+        if(rental.getId() == null || rental.getEnd() != null)
             throw new IllegalArgumentException();
 
-        var entityManager = entityManagerFactory.createEntityManager();
+        for(int attempt = 1; ; attempt++){
+            try{
+                return tryFinish(rental.getId(),station,drivenKm);
+            }
+            catch (OptimisticLockException | PessimisticLockException | LockTimeoutException e){
+                // inside a unit of work the transaction is already lost
+                if(attempt == MAX_FINISH_ATTEMPTS || entityManagers.isBound())
+                    throw e;
+            }
+        }
+    }
 
-        rental.setEnd(LocalDateTime.now());
-        rental.setDrivenKm(drivenKm);
-        rental.setReturnStation(station);
+    private Rental tryFinish(Long rentalId, Station station, double drivenKm){
+        return entityManagers.inTransaction(entityManager -> {
+            Map<String, Object> hints = Map.of("jakarta.persistence.fetchgraph",entityManager.getEntityGraph(Rental.FULL_GRAPH));
+            var rental = entityManager.find(Rental.class,rentalId,hints);
+            if(rental == null || rental.getEnd() != null)
+                throw new IllegalArgumentException();
+            var returnStation = entityManager.find(Station.class,station.getId());
+            if(returnStation == null)
+                throw new IllegalArgumentException();
 
-        var car = rental.getCar();
-        car.setMileage(car.getMileage()+drivenKm);
-        car.setLocation(station);
+            rental.setEnd(LocalDateTime.now());
+            rental.setDrivenKm(drivenKm);
+            rental.setReturnStation(returnStation);
+            entityManager.flush();
 
+            // stays inline, Hibernate 6.0.0 puts lock options on every named query and rejects them on updates
+            String jpql = """
+                    Update Car car
+                    set car.mileage = car.mileage + :drivenKm,
+                    car.location = :station,
+                    car.version = car.version + 1
+                    where car.plate = :plate
+                    """;
+            entityManager.createQuery(jpql)
+                    .setParameter("drivenKm",drivenKm)
+                    .setParameter("station",returnStation)
+                    .setParameter("plate",rental.getCar().getPlate())
+                    .executeUpdate();
+
+            // the update bypasses the persistence context, which may be shared with a unit of work
+            entityManager.refresh(rental.getCar());
+            Hibernate.initialize(rental.getRentalStation());
+            return rental;
+        });
+    }
+
+    public boolean isCarAvailable(Car car, LocalDateTime start, LocalDateTime end){
+        return isCarAvailable(car.getPlate(),start,end,null);
+    }
+
+    // the rental with the given id does not count, so a rental can be saved again over its own period
+    public boolean isCarAvailable(String plate, LocalDateTime start, LocalDateTime end, Long rentalId){
+        var entityManager = entityManagers.open();
         try{
-            entityManager.getTransaction().begin();
-            entityManager.merge(rental);
-            entityManager.merge(car);
-            entityManager.getTransaction().commit();
+            var query = entityManager.createNamedQuery(end == null ? Rental.OVERLAPPING_OPEN : Rental.OVERLAPPING,Long.class)
+                    .setParameter("plate",plate)
+                    .setParameter("start",start)
+                    .setParameter("rentalId",rentalId)
+                    .setMaxResults(1);
+            if(end != null)
+                query.setParameter("end",end);
+            return query.getResultList().isEmpty();
         }
-        catch (Exception e){
-            entityManager.getTransaction().rollback();
-            throw e;
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
+
+    // the periods of rentals still open or ending after the given time
+    public List<RentalPeriod> findRentalPeriods(LocalDateTime after){
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Rental.PERIODS,RentalPeriod.class)
+                    .setParameter("after",after)
+                    .getResultList();
         }
         finally {
-            entityManager.close();
+            entityManagers.release(entityManager);
         }
-        return rental;
     }
 
-    public boolean checkIfCarIsAvaliable(Car car, LocalDateTime start, LocalDateTime end){
-        var entityManager = entityManagerFactory.createEntityManager();
+    public List<RentalPeriod> findRentalPeriods(Collection<String> plates, LocalDateTime after){
+        var entityManager = entityManagers.open();
         try{
-            String jqpl = """
-                    Select rental from Rental rental
-                    where rental.car = :car and
-                    :start <= rental.end and
-                    rental.beginning >= :end
-                    """;
-            var query = entityManager.createQuery(jqpl,Rental.class)
-                    .setParameter("car",car)
-                    .setParameter("start",start)
-                    .setParameter("end",end);
-            return !query.getResultList().isEmpty();
+            return entityManager.createNamedQuery(Rental.PERIODS_OF_CARS,RentalPeriod.class)
+                    .setParameter("plates",plates)
+                    .setParameter("after",after)
+                    .getResultList();
         }
         finally {
-            entityManager.close();
+            entityManagers.release(entityManager);
         }
     }
 
+    public List<RentalSummary> findSummaries(){
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Rental.SUMMARIES,RentalSummary.class)
+                    .setHint(HibernateHints.HINT_READ_ONLY,true)
+                    .getResultList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
 }
@@ -1,16 +1,34 @@
 package persistance;
 
-import domain.Car;
 import domain.Station;
+import domain.projections.StationSummary;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
 
 public class JPAStationRepository {
 
     public JPAStationRepository(EntityManagerFactory entityManagerFactory){
-        this.entityManagerFactory = entityManagerFactory;
+        this(new EntityManagers(entityManagerFactory));
+    }
+
+    public JPAStationRepository(EntityManagers entityManagers){
+        this.entityManagers = entityManagers;
     }
 
-    private EntityManagerFactory entityManagerFactory;
+    private EntityManagers entityManagers;
 
+    public List<StationSummary> findSummaries(){
+        var entityManager = entityManagers.open();
+        try{
+            return entityManager.createNamedQuery(Station.SUMMARIES,StationSummary.class)
+                    .setHint(HibernateHints.HINT_READ_ONLY,true)
+                    .getResultList();
+        }
+        finally {
+            entityManagers.release(entityManager);
+        }
+    }
 }
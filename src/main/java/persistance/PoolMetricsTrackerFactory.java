@@ -0,0 +1,56 @@
+package persistance;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final Tracker tracker = new Tracker();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return tracker;
+    }
+
+    public long acquiredConnections(){
+        return tracker.acquired.sum();
+    }
+
+    public double averageWaitMillis(){
+        long acquired = tracker.acquired.sum();
+        return acquired == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(tracker.waitNanos.sum()) / 1_000.0 / acquired;
+    }
+
+    public double maxWaitMillis(){
+        return TimeUnit.NANOSECONDS.toMicros(tracker.maxWaitNanos.get()) / 1_000.0;
+    }
+
+    public long timeouts(){
+        return tracker.timeouts.sum();
+    }
+
+    private static class Tracker implements IMetricsTracker {
+
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder timeouts = new LongAdder();
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired.increment();
+            waitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
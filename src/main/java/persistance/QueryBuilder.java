@@ -0,0 +1,113 @@
+package persistance;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Typed criteria queries over the generated metamodel, for the ad hoc queries that have no named query.
+ * Attributes are checked by the compiler instead of at boot, {@code Car_.location, Station_.id} reads
+ * {@code car.location.id}. The entity manager stays with the caller.
+ */
+public class QueryBuilder<T> {
+
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
+    private final EntityManager entityManager;
+    private final CriteriaBuilder criteriaBuilder;
+    private final CriteriaQuery<T> criteria;
+    private final Root<T> root;
+    private final List<Predicate> predicates = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private String graphName;
+    private boolean cacheable;
+    private int limit = -1;
+
+    private QueryBuilder(EntityManager entityManager, Class<T> tClass){
+        this.entityManager = entityManager;
+        this.criteriaBuilder = entityManager.getCriteriaBuilder();
+        this.criteria = criteriaBuilder.createQuery(tClass);
+        this.root = criteria.from(tClass);
+    }
+
+    public static <T> QueryBuilder<T> select(EntityManager entityManager, Class<T> tClass){
+        return new QueryBuilder<>(entityManager, tClass);
+    }
+
+    public <V> QueryBuilder<T> whereEqual(SingularAttribute<? super T, V> attribute, V value){
+        predicates.add(criteriaBuilder.equal(root.get(attribute), value));
+        return this;
+    }
+
+    public <X, V> QueryBuilder<T> whereEqual(SingularAttribute<? super T, X> association,
+                                             SingularAttribute<? super X, V> attribute, V value){
+        predicates.add(criteriaBuilder.equal(root.get(association).get(attribute), value));
+        return this;
+    }
+
+    public <V extends Comparable<? super V>> QueryBuilder<T> whereGreaterThan(SingularAttribute<? super T, V> attribute, V value){
+        predicates.add(criteriaBuilder.greaterThan(root.get(attribute), value));
+        return this;
+    }
+
+    public <V extends Comparable<? super V>> QueryBuilder<T> whereLessThan(SingularAttribute<? super T, V> attribute, V value){
+        predicates.add(criteriaBuilder.lessThan(root.get(attribute), value));
+        return this;
+    }
+
+    public QueryBuilder<T> whereNull(SingularAttribute<? super T, ?> attribute){
+        predicates.add(criteriaBuilder.isNull(root.get(attribute)));
+        return this;
+    }
+
+    public QueryBuilder<T> orderBy(SingularAttribute<? super T, ?> attribute){
+        orders.add(criteriaBuilder.asc(root.get(attribute)));
+        return this;
+    }
+
+    public QueryBuilder<T> fetchGraph(String graphName){
+        this.graphName = graphName;
+        return this;
+    }
+
+    public QueryBuilder<T> cacheable(){
+        this.cacheable = true;
+        return this;
+    }
+
+    public QueryBuilder<T> limit(int limit){
+        if(limit <= 0)
+            throw new IllegalArgumentException();
+        this.limit = limit;
+        return this;
+    }
+
+    public TypedQuery<T> build(){
+        criteria.select(root)
+                .orderBy(orders);
+        // an empty where clause trips the parameter collector
+        if(!predicates.isEmpty())
+            criteria.where(predicates.toArray(Predicate[]::new));
+        var query = entityManager.createQuery(criteria);
+        if(graphName != null)
+            query.setHint(FETCH_GRAPH, entityManager.getEntityGraph(graphName));
+        if(cacheable)
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        if(limit > 0)
+            query.setMaxResults(limit);
+        return query;
+    }
+
+    public List<T> getResultList(){
+        return build().getResultList();
+    }
+}
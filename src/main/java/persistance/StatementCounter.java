@@ -0,0 +1,22 @@
+package persistance;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts the JDBC statements Hibernate prepares on the current thread. Registered for every session through
+ * {@code hibernate.session.events.auto}, so the statements of a call are the difference of two readings,
+ * even while other threads use the same factory.
+ */
+public class StatementCounter extends BaseSessionEventListener {
+
+    private static final ThreadLocal<long[]> PREPARED = ThreadLocal.withInitial(() -> new long[1]);
+
+    public static long prepared(){
+        return PREPARED.get()[0];
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        PREPARED.get()[0]++;
+    }
+}
@@ -0,0 +1,94 @@
+package service;
+
+import domain.Car;
+import domain.Rental;
+import domain.RentalGraph;
+import domain.Station;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link Service} calls on virtual threads. At most {@code maxConcurrency} calls
+ * run at once, so callers queue on a semaphore instead of on the connection pool.
+ * Without a maximum it is the size of the connection pool, or {@link #DEFAULT_CONCURRENCY}
+ * when the service reports no pool.
+ */
+public class AsyncService implements AutoCloseable {
+
+    public static final int DEFAULT_CONCURRENCY = 10;
+
+    private final Service service;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncService(Service service){
+        this(service, service.poolStatistics()
+                .map(PoolStatistics::maximumPoolSize)
+                .orElse(DEFAULT_CONCURRENCY));
+    }
+
+    public AsyncService(Service service, int maxConcurrency){
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException();
+        this.service = service;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public CompletableFuture<Rental> save(Rental rental) {
+        return submit(() -> service.save(rental));
+    }
+
+    public CompletableFuture<Station> save(Station station) {
+        return submit(() -> service.save(station));
+    }
+
+    public CompletableFuture<Car> save(Car car) {
+        return submit(() -> service.save(car));
+    }
+
+    public CompletableFuture<Rental> finish(Rental rental, Station station, double drivenKm) {
+        return submit(() -> service.finish(rental, station, drivenKm));
+    }
+
+    public CompletableFuture<Optional<Rental>> findRentalById(long id) {
+        return findRentalById(id, RentalGraph.FULL);
+    }
+
+    public CompletableFuture<Optional<Rental>> findRentalById(long id, RentalGraph graph) {
+        return submit(() -> service.findRentalById(id, graph));
+    }
+
+    public CompletableFuture<Set<Car>> findCarsStationedAt(Station station) {
+        return submit(() -> service.findCarsStationedAt(station));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return call.get();
+            }
+            finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,254 @@
+package service;
+
+import domain.projections.RentalPeriod;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of the rental periods, one {@link TreeMap} per car keyed by the beginning of the rental.
+ * Periods of a car never overlap, so a booking can only collide with the period starting right before it
+ * or with periods starting inside the requested window.
+ * Next to the periods every car keeps a {@link RoaringBitmap} of the hours it is booked in, rounded outwards,
+ * and the hour its open-ended rental starts in. A window whose hours are all clear is free without looking
+ * at the periods, only hits are checked exactly.
+ * Periods that ended by the {@linkplain #advance(LocalDateTime) horizon} are dropped the next time their car
+ * is written, so the index holds recent and upcoming rentals only. Windows starting before what a car still
+ * holds are left to the caller's fallback.
+ */
+public class AvailabilityIndex {
+
+    private static final int SECONDS_PER_HOUR = 3600;
+    // hours count from 2^31 hours before 1970, about 245,000 years either way; times beyond share the first or
+    // last hour, which only costs an exact check of the periods
+    private static final long HOUR_OFFSET = 1L << 31;
+    private static final long LAST_HOUR = (1L << 32) - 1;
+    private static final long NO_END = 1L << 32;
+
+    private final Map<String, Timeline> timelinesByPlate = new ConcurrentHashMap<>();
+    private final Map<Long, RentalPeriod> periodsById = new ConcurrentHashMap<>();
+    private volatile LocalDateTime horizon = LocalDateTime.MIN;
+
+    public boolean covers(String plate){
+        return timelinesByPlate.containsKey(plate);
+    }
+
+    public LocalDateTime horizon(){
+        return horizon;
+    }
+
+    // never moves back, a car's periods are only dropped when it is written next
+    public synchronized void advance(LocalDateTime horizon){
+        if(horizon.isAfter(this.horizon))
+            this.horizon = horizon;
+    }
+
+    // the periods have to hold everything that ends after the horizon read before loading them
+    public void load(Collection<String> plates, Collection<RentalPeriod> periods){
+        plates.forEach(plate -> timelinesByPlate.computeIfAbsent(plate, p -> new Timeline(horizon)));
+        periods.forEach(this::add);
+    }
+
+    public void load(Collection<RentalPeriod> periods){
+        periods.forEach(this::add);
+    }
+
+    // drops everything known about the plates, they are loaded again when next needed
+    public void forget(Collection<String> plates){
+        for(var plate : plates){
+            var timeline = timelinesByPlate.remove(plate);
+            if(timeline == null)
+                continue;
+            synchronized (timeline){
+                timeline.periods.values().stream()
+                        .filter(period -> period.rentalId() != null)
+                        .forEach(period -> periodsById.remove(period.rentalId(), period));
+            }
+        }
+    }
+
+    // a period replacing an earlier one of the same car is swapped under one lock, so no check sees the car free in between
+    public void add(RentalPeriod period){
+        var timeline = timelinesByPlate.computeIfAbsent(period.plate(), p -> new Timeline(horizon));
+        RentalPeriod moved;
+        synchronized (timeline){
+            prune(timeline);
+            var held = !endsBy(period, timeline.heldFrom);
+            var previous = period.rentalId() == null ? null
+                    : held ? periodsById.put(period.rentalId(), period) : periodsById.remove(period.rentalId());
+            moved = previous != null && !previous.plate().equals(period.plate()) ? previous : null;
+            if(previous != null && moved == null && timeline.periods.remove(previous.beginning(), previous))
+                timeline.release(previous);
+            if(held){
+                timeline.periods.put(period.beginning(), period);
+                timeline.occupy(period);
+            }
+        }
+        if(moved != null)
+            remove(moved);
+    }
+
+    // cars that are not covered are left to the database, a single period would not make them covered
+    public void addIfCovered(RentalPeriod period){
+        if(covers(period.plate()))
+            add(period);
+    }
+
+    public void end(long rentalId, LocalDateTime end){
+        var period = periodsById.get(rentalId);
+        if(period != null)
+            add(new RentalPeriod(rentalId, period.plate(), period.beginning(), end));
+    }
+
+    // a car the index knows nothing about is free
+    public boolean isAvailable(String plate, LocalDateTime start, LocalDateTime end, Long rentalId){
+        return isAvailable(plate, start, end, rentalId, () -> true);
+    }
+
+    // otherwise answers for cars that are not covered and windows starting before what the car still holds
+    public boolean isAvailable(String plate, LocalDateTime start, LocalDateTime end, Long rentalId, BooleanSupplier otherwise){
+        var timeline = timelinesByPlate.get(plate);
+        if(timeline != null){
+            synchronized (timeline){
+                if(timeline.holds(start))
+                    return overlapping(timeline.periods, start, end)
+                            .allMatch(period -> isSameRental(period, rentalId));
+            }
+        }
+        return otherwise.getAsBoolean();
+    }
+
+    // answers from the hour bitmap alone unless the car is booked in one of the hours the window touches
+    public boolean isFree(String plate, LocalDateTime start, LocalDateTime end, BooleanSupplier otherwise){
+        var timeline = timelinesByPlate.get(plate);
+        if(timeline != null){
+            synchronized (timeline){
+                if(timeline.holds(start))
+                    return !timeline.occupies(hour(start), end == null ? NO_END : hourAfter(end)) ||
+                            overlapping(timeline.periods, start, end).findAny().isEmpty();
+            }
+        }
+        return otherwise.getAsBoolean();
+    }
+
+    private void remove(RentalPeriod period){
+        var timeline = timelinesByPlate.get(period.plate());
+        if(timeline == null)
+            return;
+        synchronized (timeline){
+            if(timeline.periods.remove(period.beginning(), period))
+                timeline.release(period);
+        }
+    }
+
+    // called with the timeline's monitor held. Periods of a car do not overlap, so they end in the order they begin
+    private void prune(Timeline timeline){
+        var horizon = this.horizon;
+        if(!timeline.heldFrom.isBefore(horizon))
+            return;
+        timeline.heldFrom = horizon;
+        var iterator = timeline.periods.values().iterator();
+        while(iterator.hasNext()){
+            var period = iterator.next();
+            if(!endsBy(period, horizon))
+                return;
+            iterator.remove();
+            timeline.release(period);
+            if(period.rentalId() != null)
+                periodsById.remove(period.rentalId(), period);
+        }
+    }
+
+    private static boolean endsBy(RentalPeriod period, LocalDateTime time){
+        return period.end() != null && !period.end().isAfter(time);
+    }
+
+    private static Stream<RentalPeriod> overlapping(NavigableMap<LocalDateTime, RentalPeriod> periods, LocalDateTime start, LocalDateTime end){
+        var before = periods.lowerEntry(start);
+        var starting = end == null ? periods.tailMap(start, true) : periods.subMap(start, true, end, false);
+        var previous = before != null && before.getValue().overlaps(start, end) ? Stream.of(before.getValue()) : Stream.<RentalPeriod>empty();
+        return Stream.concat(previous, starting.values().stream());
+    }
+
+    private static boolean isSameRental(RentalPeriod period, Long rentalId){
+        return rentalId != null && Objects.equals(period.rentalId(), rentalId);
+    }
+
+    private static long hour(LocalDateTime time){
+        return Math.clamp(unboundedHour(time), 0, LAST_HOUR);
+    }
+
+    // exclusive end of the hours a period ending at the given time touches
+    private static long hourAfter(LocalDateTime time){
+        var hour = unboundedHour(time);
+        var startsHour = time.getNano() == 0 && time.toEpochSecond(ZoneOffset.UTC) % SECONDS_PER_HOUR == 0;
+        return Math.clamp(startsHour ? hour : hour + 1, 1, NO_END);
+    }
+
+    private static long unboundedHour(LocalDateTime time){
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR) + HOUR_OFFSET;
+    }
+
+    // the first and last hour reach to the ends of time
+    private static LocalDateTime timeOf(long hour){
+        if(hour <= 0)
+            return LocalDateTime.MIN;
+        if(hour >= NO_END)
+            return LocalDateTime.MAX;
+        return LocalDateTime.ofEpochSecond((hour - HOUR_OFFSET) * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+    }
+
+    // guarded by its own monitor
+    private static class Timeline {
+
+        private final NavigableMap<LocalDateTime, RentalPeriod> periods = new TreeMap<>();
+        private final RoaringBitmap hours = new RoaringBitmap();
+        private long openFrom = NO_END;
+        // every period ending after it is held, windows starting before it may miss some
+        private LocalDateTime heldFrom;
+
+        private Timeline(LocalDateTime heldFrom){
+            this.heldFrom = heldFrom;
+        }
+
+        private boolean holds(LocalDateTime start){
+            return !start.isBefore(heldFrom);
+        }
+
+        private void occupy(RentalPeriod period){
+            if(period.end() == null)
+                openFrom = Math.min(openFrom, hour(period.beginning()));
+            else
+                hours.add(hour(period.beginning()), hourAfter(period.end()));
+        }
+
+        // the first and last hour can be shared with neighbouring periods, those are occupied again
+        private void release(RentalPeriod period){
+            var from = hour(period.beginning());
+            if(period.end() == null){
+                // periods do not overlap, an open-ended one can only be the last
+                var last = periods.lastEntry();
+                openFrom = last != null && last.getValue().end() == null ? hour(last.getKey()) : NO_END;
+                return;
+            }
+            var to = hourAfter(period.end());
+            hours.remove(from, to);
+            overlapping(periods, timeOf(from), timeOf(to))
+                    .filter(other -> other.end() != null)
+                    .forEach(this::occupy);
+        }
+
+        private boolean occupies(long from, long to){
+            return openFrom < to || hours.intersects(from, to);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package service;
+
+import java.util.List;
+
+public record BatchResult<T>(List<T> saved, List<Failure<T>> failed) {
+
+    public record Failure<T>(T item, RuntimeException cause) {
+    }
+
+    public boolean isCompleteSuccess(){
+        return failed.isEmpty();
+    }
+}
@@ -0,0 +1,9 @@
+package service;
+
+public record CacheStatistics(long secondLevelCacheHits,
+                              long secondLevelCacheMisses,
+                              long secondLevelCachePuts,
+                              long queryCacheHits,
+                              long queryCacheMisses,
+                              long queryCachePuts) {
+}
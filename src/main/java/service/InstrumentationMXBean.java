@@ -0,0 +1,16 @@
+package service;
+
+import java.util.List;
+
+public interface InstrumentationMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    List<MethodStatistics> getStatistics();
+
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,341 @@
+package service;
+
+import domain.*;
+import domain.projections.CarMileage;
+import domain.projections.CarOccupancy;
+import domain.projections.CarSummary;
+import domain.projections.MonthlyMileage;
+import domain.projections.RentalSummary;
+import domain.projections.StationRentals;
+import domain.projections.StationSummary;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import persistance.StatementCounter;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Decorates a {@link Service} with per-method call and error counts, latency histograms and the number of
+ * JDBC statements prepared during each call. Disabled, a call costs one volatile read on top of the delegate.
+ * Calls made through the service inside {@link #inTransaction(Function)} are recorded on their own as well.
+ */
+public class InstrumentedService implements Service, InstrumentationMXBean, AutoCloseable {
+
+    private static final String HEADER = "%-40s %10s %8s %11s %10s %10s %10s %10s%n";
+    private static final String LINE = "%-40s %10d %8d %11.1f %10.1f %10.1f %10.1f %10.1f%n";
+
+    private final Service service;
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private ObjectName objectName;
+    private ScheduledExecutorService dumper;
+
+    public InstrumentedService(Service service){
+        this.service = service;
+    }
+
+    public synchronized void registerMBean(String name){
+        try {
+            var objectName = new ObjectName("jpa-car-rental:type=Instrumentation,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public synchronized void startDumping(Duration period, Consumer<String> out){
+        if (dumper != null)
+            throw new IllegalStateException("already dumping");
+        dumper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("instrumentation-dump")
+                .daemon()
+                .factory());
+        dumper.scheduleAtFixedRate(() -> out.accept(dump()), period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            }
+            catch (JMException e) {
+                throw new IllegalStateException(e);
+            }
+            objectName = null;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public List<MethodStatistics> getStatistics() {
+        return probes.entrySet().stream()
+                .map(entry -> entry.getValue().statistics(entry.getKey()))
+                .sorted(Comparator.comparing(MethodStatistics::method))
+                .toList();
+    }
+
+    @Override
+    public String dump() {
+        var text = new StringBuilder()
+                .append(HEADER.formatted("method", "calls", "errors", "stmts/call", "p50 us", "p99 us", "p999 us", "max us"));
+        for (var statistics : getStatistics()) {
+            var statementsPerCall = statistics.calls() == 0 ? 0.0 : (double) statistics.statements() / statistics.calls();
+            text.append(LINE.formatted(statistics.method(), statistics.calls(), statistics.errors(), statementsPerCall,
+                    statistics.p50Micros(), statistics.p99Micros(), statistics.p999Micros(), statistics.maxMicros()));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void reset() {
+        probes.clear();
+    }
+
+    @Override
+    public <R> R inTransaction(Function<? super Service, R> work) {
+        return time("inTransaction", () -> service.inTransaction(unit -> work.apply(this)));
+    }
+
+    @Override
+    public Rental save(Rental rental) {
+        return time("save(Rental)", () -> service.save(rental));
+    }
+
+    @Override
+    public Station save(Station station) {
+        return time("save(Station)", () -> service.save(station));
+    }
+
+    @Override
+    public Car save(Car car) {
+        return time("save(Car)", () -> service.save(car));
+    }
+
+    @Override
+    public BatchResult<Rental> saveAllRentals(Collection<Rental> rentals) {
+        return time("saveAllRentals", () -> service.saveAllRentals(rentals));
+    }
+
+    @Override
+    public BatchResult<Station> saveAllStations(Collection<Station> stations) {
+        return time("saveAllStations", () -> service.saveAllStations(stations));
+    }
+
+    @Override
+    public BatchResult<Car> saveAllCars(Collection<Car> cars) {
+        return time("saveAllCars", () -> service.saveAllCars(cars));
+    }
+
+    @Override
+    public List<Station> findAllStations() {
+        return time("findAllStations", service::findAllStations);
+    }
+
+    @Override
+    public List<Car> findAllCars() {
+        return time("findAllCars", service::findAllCars);
+    }
+
+    @Override
+    public List<Rental> findAllRentals(RentalGraph graph) {
+        return time("findAllRentals", () -> service.findAllRentals(graph));
+    }
+
+    @Override
+    public List<StationSummary> findStationSummaries() {
+        return time("findStationSummaries", service::findStationSummaries);
+    }
+
+    @Override
+    public List<CarSummary> findCarSummaries() {
+        return time("findCarSummaries", service::findCarSummaries);
+    }
+
+    @Override
+    public List<RentalSummary> findRentalSummaries() {
+        return time("findRentalSummaries", service::findRentalSummaries);
+    }
+
+    @Override
+    public List<Station> findStationsAfter(Long lastId, int limit) {
+        return time("findStationsAfter", () -> service.findStationsAfter(lastId, limit));
+    }
+
+    @Override
+    public List<Car> findCarsAfter(String lastPlate, int limit) {
+        return time("findCarsAfter", () -> service.findCarsAfter(lastPlate, limit));
+    }
+
+    @Override
+    public List<Rental> findRentalsAfter(Long lastId, int limit) {
+        return time("findRentalsAfter", () -> service.findRentalsAfter(lastId, limit));
+    }
+
+    // only opening the cursor is timed, the caller consumes the stream at its own pace
+    @Override
+    public Stream<Station> streamAllStations() {
+        return time("streamAllStations", service::streamAllStations);
+    }
+
+    @Override
+    public Stream<Car> streamAllCars() {
+        return time("streamAllCars", service::streamAllCars);
+    }
+
+    @Override
+    public Stream<Rental> streamAllRentals() {
+        return time("streamAllRentals", service::streamAllRentals);
+    }
+
+    @Override
+    public Optional<Rental> findRentalById(long id, RentalGraph graph) {
+        return time("findRentalById", () -> service.findRentalById(id, graph));
+    }
+
+    @Override
+    public Set<Car> findCarsStationedAt(Station station) {
+        return time("findCarsStationedAt", () -> service.findCarsStationedAt(station));
+    }
+
+    @Override
+    public Set<Car> findAvailableCars(Station station, LocalDateTime from, LocalDateTime to) {
+        return time("findAvailableCars", () -> service.findAvailableCars(station, from, to));
+    }
+
+    @Override
+    public Rental finish(Rental rental, Station station, double drivenKm) {
+        return time("finish", () -> service.finish(rental, station, drivenKm));
+    }
+
+    @Override
+    public long countCarsAt(Station station) {
+        return time("countCarsAt", () -> service.countCarsAt(station));
+    }
+
+    @Override
+    public Map<Long, Long> inventorySnapshot() {
+        return time("inventorySnapshot", service::inventorySnapshot);
+    }
+
+    @Override
+    public void rebuildInventory() {
+        time("rebuildInventory", () -> {
+            service.rebuildInventory();
+            return null;
+        });
+    }
+
+    @Override
+    public List<StationRentals> countRentalsPerStation(LocalDateTime from, LocalDateTime to) {
+        return time("countRentalsPerStation", () -> service.countRentalsPerStation(from, to));
+    }
+
+    @Override
+    public List<CarMileage> findMileagePerCar(LocalDateTime from, LocalDateTime to) {
+        return time("findMileagePerCar", () -> service.findMileagePerCar(from, to));
+    }
+
+    @Override
+    public List<MonthlyMileage> findMileagePerMonth(LocalDateTime from, LocalDateTime to) {
+        return time("findMileagePerMonth", () -> service.findMileagePerMonth(from, to));
+    }
+
+    @Override
+    public List<CarOccupancy> findOccupancy(LocalDateTime from, LocalDateTime to) {
+        return time("findOccupancy", () -> service.findOccupancy(from, to));
+    }
+
+    @Override
+    public Optional<Duration> averageRentalDuration(LocalDateTime from, LocalDateTime to) {
+        return time("averageRentalDuration", () -> service.averageRentalDuration(from, to));
+    }
+
+    @Override
+    public CacheStatistics cacheStatistics() {
+        return service.cacheStatistics();
+    }
+
+    @Override
+    public Optional<PoolStatistics> poolStatistics() {
+        return service.poolStatistics();
+    }
+
+    private <R> R time(String method, Supplier<R> call){
+        if (!enabled)
+            return call.get();
+
+        var probe = probes.computeIfAbsent(method, name -> new Probe());
+        long statements = StatementCounter.prepared();
+        long start = System.nanoTime();
+        var failed = true;
+        try {
+            var result = call.get();
+            failed = false;
+            return result;
+        }
+        finally {
+            probe.record(System.nanoTime() - start, StatementCounter.prepared() - statements, failed);
+        }
+    }
+
+    private static class Probe {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram latency = new Histogram(3);
+
+        private void record(long nanos, long statements, boolean failed){
+            recorder.recordValue(nanos);
+            this.statements.add(statements);
+            calls.increment();
+            if (failed)
+                errors.increment();
+        }
+
+        // the recorder hands over what was recorded since the last call without stopping the writers
+        private synchronized MethodStatistics statistics(String method){
+            latency.add(recorder.getIntervalHistogram());
+            return new MethodStatistics(method, calls.sum(), errors.sum(), statements.sum(),
+                    micros(latency.getValueAtPercentile(50)),
+                    micros(latency.getValueAtPercentile(99)),
+                    micros(latency.getValueAtPercentile(99.9)),
+                    micros(latency.getMaxValue()));
+        }
+
+        private static double micros(long nanos){
+            return nanos / 1_000.0;
+        }
+    }
+}
@@ -1,37 +1,117 @@
 package service;
 
 import domain.*;
+import domain.exceptions.CarNotAvailableException;
+import domain.projections.CarMileage;
+import domain.projections.CarOccupancy;
+import domain.projections.CarSummary;
+import domain.projections.MonthlyMileage;
+import domain.projections.RentalPeriod;
+import domain.projections.RentalSummary;
+import domain.projections.StationRentals;
+import domain.projections.StationSummary;
 
+import journal.RentalEvent;
+import journal.RentalJournal;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import persistance.EntityManagers;
+import persistance.JPAAnalyticsRepository;
 import persistance.JPACarRepository;
 import persistance.JPAGenericRepository;
 import persistance.JPARentalRepository;
 import persistance.JPAStationRepository;
+import persistance.PoolMetricsTrackerFactory;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * {@link Service} backed by JPA. The availability index, the station counts and the car locks live in the
+ * instance, so keep one per database and share it: bookings made through another instance, or by anything else
+ * writing the database, are not seen by this instance's index, and two instances do not lock cars against each other.
+ */
 public class JpaService implements Service {
 
+    private static final int CAR_LOCK_STRIPES = 64;
+    // how long finished rentals stay in the availability index, bookings reaching further back are checked in the database
+    private static final Duration HISTORY = Duration.ofDays(7);
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
     public JpaService(EntityManagerFactory entityManagerFactory){
+        this(entityManagerFactory, null);
+    }
+
+    // the read models are loaded from the database, which stays the source of truth. The journal keeps the history
+    // of committed bookings, finishes and relocations; nothing is read back from it here
+    public JpaService(EntityManagerFactory entityManagerFactory, RentalJournal journal){
+        this(entityManagerFactory, journal, Clock.systemDefaultZone());
+    }
+
+    // the clock moves the horizon of the availability index
+    public JpaService(EntityManagerFactory entityManagerFactory, RentalJournal journal, Clock clock){
         this.entityManagerFactory = entityManagerFactory;
-        this.jpaCarRepository = new JPACarRepository(entityManagerFactory);
-        this.jpaRentalRepository = new JPARentalRepository(entityManagerFactory);
-        this.jpaStationRepository = new JPAStationRepository(entityManagerFactory);
-        this.jpaGenericRepository = new JPAGenericRepository(entityManagerFactory);
+        this.journal = journal;
+        this.clock = clock;
+        this.entityManagers = new EntityManagers(entityManagerFactory);
+        this.jpaCarRepository = new JPACarRepository(entityManagers);
+        this.jpaRentalRepository = new JPARentalRepository(entityManagers);
+        this.jpaStationRepository = new JPAStationRepository(entityManagers);
+        this.jpaGenericRepository = new JPAGenericRepository(entityManagers);
+        this.jpaAnalyticsRepository = new JPAAnalyticsRepository(entityManagers);
+        this.availabilityIndex = new AvailabilityIndex();
+        this.carLocks = new StripedLock(CAR_LOCK_STRIPES);
+        this.stationInventory = new StationInventory();
+        availabilityIndex.advance(horizon());
+        var cars = jpaCarRepository.findSummaries();
+        availabilityIndex.load(cars.stream().map(CarSummary::plate).toList(), jpaRentalRepository.findRentalPeriods(availabilityIndex.horizon()));
+        stationInventory.rebuild(() -> cars);
     }
 
     private EntityManagerFactory entityManagerFactory;
+    private EntityManagers entityManagers;
 
     private JPACarRepository jpaCarRepository;
     private JPARentalRepository jpaRentalRepository;
     private JPAStationRepository jpaStationRepository;
     private JPAGenericRepository jpaGenericRepository;
+    private JPAAnalyticsRepository jpaAnalyticsRepository;
+
+    private AvailabilityIndex availabilityIndex;
+    private StripedLock carLocks;
+    private StationInventory stationInventory;
+    private RentalJournal journal;
+    private Clock clock;
+
+    @Override
+    public <R> R inTransaction(Function<? super Service, R> work) {
+        return entityManagers.inTransaction(entityManager -> work.apply(this));
+    }
 
     @Override
     public Rental save(Rental rental) {
-        if (jpaRentalRepository.checkIfCarIsAvaliable(rental.getCar(),rental.getBeginning(),rental.getEnd()))
+        if (rental.getCar() == null || rental.getBeginning() == null)
             throw new IllegalArgumentException();
-        return jpaGenericRepository.safe(rental);
+
+        return withCarLocks(List.of(rental.getCar().getPlate()), () -> {
+            if (!isAvailable(rental))
+                throw new CarNotAvailableException();
+            var saved = jpaGenericRepository.safe(rental);
+            record(List.of(booked(saved)));
+            return saved;
+        });
     }
 
     @Override
@@ -41,7 +121,79 @@ public class JpaService implements Service {
 
     @Override
     public Car save(Car car) {
-        return jpaGenericRepository.safe(car);
+        var saved = jpaGenericRepository.safe(car);
+        record(List.of(relocated(saved)));
+        return saved;
+    }
+
+    @Override
+    public BatchResult<Rental> saveAllRentals(Collection<Rental> rentals) {
+        var failed = new ArrayList<BatchResult.Failure<Rental>>();
+        var valid = new ArrayList<Rental>();
+        for (var rental : rentals) {
+            if (rental.getCar() == null || rental.getBeginning() == null)
+                failed.add(new BatchResult.Failure<>(rental, new IllegalArgumentException()));
+            else if (isValid(rental, failed))
+                valid.add(rental);
+        }
+
+        var plates = valid.stream()
+                .map(rental -> rental.getCar().getPlate())
+                .distinct()
+                .toList();
+        return withCarLocks(plates, () -> {
+            var uncovered = plates.stream()
+                    .filter(plate -> !availabilityIndex.covers(plate))
+                    .toList();
+            if (!uncovered.isEmpty())
+                availabilityIndex.load(uncovered, jpaRentalRepository.findRentalPeriods(uncovered, availabilityIndex.horizon()));
+            var history = valid.stream()
+                    .map(Rental::getBeginning)
+                    .min(Comparator.naturalOrder())
+                    .map(earliest -> history(plates, earliest))
+                    .orElseGet(AvailabilityIndex::new);
+
+            var batchIndex = new AvailabilityIndex();
+            var accepted = new ArrayList<Rental>();
+            for (var rental : valid) {
+                var plate = rental.getCar().getPlate();
+                if (isAvailable(rental, history) &&
+                        batchIndex.isAvailable(plate,rental.getBeginning(),rental.getEnd(),rental.getId())) {
+                    batchIndex.add(RentalPeriod.of(rental));
+                    accepted.add(rental);
+                }
+                else
+                    failed.add(new BatchResult.Failure<>(rental, new CarNotAvailableException()));
+            }
+
+            var result = safeAll(Rental.class, accepted, failed);
+            record(result.saved().stream()
+                    .map(JpaService::booked)
+                    .toList());
+            return result;
+        });
+    }
+
+    @Override
+    public BatchResult<Station> saveAllStations(Collection<Station> stations) {
+        var failed = new ArrayList<BatchResult.Failure<Station>>();
+        var valid = stations.stream()
+                .filter(station -> isValid(station, failed))
+                .toList();
+        return safeAll(Station.class, valid, failed);
+    }
+
+    @Override
+    public BatchResult<Car> saveAllCars(Collection<Car> cars) {
+        var failed = new ArrayList<BatchResult.Failure<Car>>();
+        var valid = cars.stream()
+                .filter(car -> isValid(car, failed))
+                .toList();
+        var result = safeAll(Car.class, valid, failed);
+        record(result.saved().stream()
+                .map(JpaService::relocated)
+                .toList());
+        return result;
     }
 
     @Override
@@ -55,13 +207,58 @@ public class JpaService implements Service {
     }
 
     @Override
-    public List<Rental> findAllRentals() {
-        return new ArrayList<>(jpaGenericRepository.findAll(Rental.class));
+    public List<Rental> findAllRentals(RentalGraph graph) {
+        return new ArrayList<>(jpaGenericRepository.findAll(Rental.class,graph.graphName()));
+    }
+
+    @Override
+    public List<StationSummary> findStationSummaries() {
+        return jpaStationRepository.findSummaries();
+    }
+
+    @Override
+    public List<CarSummary> findCarSummaries() {
+        return jpaCarRepository.findSummaries();
     }
 
     @Override
-    public Optional<Rental> findRentalById(long id) {
-        return jpaGenericRepository.findByID(id,Rental.class);
+    public List<RentalSummary> findRentalSummaries() {
+        return jpaRentalRepository.findSummaries();
+    }
+
+    @Override
+    public List<Station> findStationsAfter(Long lastId, int limit) {
+        return jpaGenericRepository.findAfter(Station.class,lastId,limit);
+    }
+
+    @Override
+    public List<Car> findCarsAfter(String lastPlate, int limit) {
+        return jpaGenericRepository.findAfter(Car.class,lastPlate,limit);
+    }
+
+    @Override
+    public List<Rental> findRentalsAfter(Long lastId, int limit) {
+        return jpaGenericRepository.findAfter(Rental.class,lastId,limit,Rental.FULL_GRAPH);
+    }
+
+    @Override
+    public Stream<Station> streamAllStations() {
+        return jpaGenericRepository.streamAll(Station.class);
+    }
+
+    @Override
+    public Stream<Car> streamAllCars() {
+        return jpaGenericRepository.streamAll(Car.class);
+    }
+
+    @Override
+    public Stream<Rental> streamAllRentals() {
+        return jpaGenericRepository.streamAll(Rental.class,Rental.FULL_GRAPH);
+    }
+
+    @Override
+    public Optional<Rental> findRentalById(long id, RentalGraph graph) {
+        return jpaGenericRepository.findByID(id,Rental.class,graph.graphName());
     }
 
     @Override
@@ -69,8 +266,238 @@ public class JpaService implements Service {
         return new HashSet<>(jpaCarRepository.getCarsAtStation(station));
     }
 
+    @Override
+    public Set<Car> findAvailableCars(Station station, LocalDateTime from, LocalDateTime to) {
+        if (from == null || (to != null && !from.isBefore(to)))
+            throw new IllegalArgumentException("window must start before it ends");
+        var cars = jpaCarRepository.getCarsAtStation(station);
+        var uncovered = cars.stream()
+                .map(Car::getPlate)
+                .filter(plate -> !availabilityIndex.covers(plate))
+                .toList();
+        if (!uncovered.isEmpty())
+            availabilityIndex.load(uncovered, jpaRentalRepository.findRentalPeriods(uncovered, availabilityIndex.horizon()));
+        var history = history(cars.stream().map(Car::getPlate).toList(), from);
+        var available = new HashSet<Car>();
+        for (var car : cars) {
+            var plate = car.getPlate();
+            if (availabilityIndex.isFree(plate, from, to, () -> history.isFree(plate, from, to,
+                    () -> jpaRentalRepository.isCarAvailable(plate, from, to, null))))
+                available.add(car);
+        }
+        return available;
+    }
+
     @Override
     public Rental finish(Rental rental, Station station, double drivenKm) {
-        return jpaRentalRepository.finish(rental,station,drivenKm);
+        if (rental.getCar() == null)
+            throw new IllegalArgumentException();
+
+        return withCarLocks(List.of(rental.getCar().getPlate()), () -> {
+            var finished = jpaRentalRepository.finish(rental,station,drivenKm);
+            record(List.of(new RentalEvent.Finished(finished.getId(), finished.getCar().getPlate(), station.getId(), finished.getEnd(), drivenKm)));
+            return finished;
+        });
+    }
+
+    @Override
+    public long countCarsAt(Station station) {
+        return station == null ? 0 : stationInventory.count(station.getId());
+    }
+
+    @Override
+    public Map<Long, Long> inventorySnapshot() {
+        return stationInventory.snapshot();
+    }
+
+    @Override
+    public void rebuildInventory() {
+        stationInventory.rebuild(jpaCarRepository::findSummaries);
+    }
+
+    @Override
+    public List<StationRentals> countRentalsPerStation(LocalDateTime from, LocalDateTime to) {
+        return jpaAnalyticsRepository.countRentalsPerStation(from, to);
+    }
+
+    @Override
+    public List<CarMileage> findMileagePerCar(LocalDateTime from, LocalDateTime to) {
+        return jpaAnalyticsRepository.findMileagePerCar(from, to);
+    }
+
+    @Override
+    public List<MonthlyMileage> findMileagePerMonth(LocalDateTime from, LocalDateTime to) {
+        return jpaAnalyticsRepository.findMileagePerMonth(from, to);
+    }
+
+    @Override
+    public List<CarOccupancy> findOccupancy(LocalDateTime from, LocalDateTime to) {
+        return jpaAnalyticsRepository.findOccupancy(from, to);
+    }
+
+    @Override
+    public Optional<Duration> averageRentalDuration(LocalDateTime from, LocalDateTime to) {
+        return jpaAnalyticsRepository.averageRentalDuration(from, to);
+    }
+
+    @Override
+    public CacheStatistics cacheStatistics() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return new CacheStatistics(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()
+        );
+    }
+
+    @Override
+    public Optional<PoolStatistics> poolStatistics() {
+        var connectionProvider = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (connectionProvider == null || !connectionProvider.isUnwrappableAs(HikariDataSource.class))
+            return Optional.empty();
+
+        var dataSource = connectionProvider.unwrap(HikariDataSource.class);
+        var pool = dataSource.getHikariPoolMXBean();
+        var metrics = dataSource.getMetricsTrackerFactory() instanceof PoolMetricsTrackerFactory tracked
+                ? tracked
+                : new PoolMetricsTrackerFactory();
+        return Optional.of(new PoolStatistics(
+                dataSource.getMaximumPoolSize(),
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                metrics.acquiredConnections(),
+                metrics.averageWaitMillis(),
+                metrics.maxWaitMillis(),
+                metrics.timeouts()
+        ));
+    }
+
+    // applied right away so later steps of a unit of work see them, journaled only once committed. The commit
+    // already made them durable, so the caller does not wait for the journal to be forced
+    private void record(List<RentalEvent> events){
+        availabilityIndex.advance(horizon());
+        events.forEach(this::apply);
+        if (journal != null)
+            entityManagers.afterCommit(() -> journal.write(events));
+        entityManagers.afterRollback(() -> revert(events));
+    }
+
+    // the read models are reloaded from the database for everything the events touched
+    private void revert(List<RentalEvent> events){
+        var plates = new HashSet<String>();
+        var moved = false;
+        for (var event : events) {
+            switch (event) {
+                case RentalEvent.Booked booked -> plates.add(booked.plate());
+                case RentalEvent.Finished finished -> {
+                    plates.add(finished.plate());
+                    moved = true;
+                }
+                case RentalEvent.Relocated relocated -> moved = true;
+            }
+        }
+        availabilityIndex.forget(plates);
+        if (moved)
+            rebuildInventory();
+    }
+
+    // inside a unit of work the cars stay locked until it ends, so no other booking can slip in before the commit
+    private <R> R withCarLocks(Collection<String> plates, Supplier<R> work){
+        var locks = carLocks.getAll(plates);
+        locks.forEach(Lock::lock);
+        if (entityManagers.isBound()) {
+            entityManagers.afterCompletion(() -> locks.forEach(Lock::unlock));
+            return work.get();
+        }
+        try {
+            return work.get();
+        }
+        finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    private void apply(RentalEvent event){
+        switch (event) {
+            case RentalEvent.Booked booked ->
+                    availabilityIndex.addIfCovered(new RentalPeriod(booked.rentalId(), booked.plate(), booked.beginning(), booked.end()));
+            case RentalEvent.Finished finished -> {
+                availabilityIndex.end(finished.rentalId(), finished.end());
+                stationInventory.move(finished.plate(), finished.stationId());
+            }
+            case RentalEvent.Relocated relocated ->
+                    stationInventory.move(relocated.plate(), relocated.stationId());
+        }
+    }
+
+    private static RentalEvent booked(Rental rental){
+        var station = rental.getRentalStation() == null ? null : rental.getRentalStation().getId();
+        return new RentalEvent.Booked(rental.getId(), rental.getCar().getPlate(), station, rental.getBeginning(), rental.getEnd());
+    }
+
+    private static RentalEvent relocated(Car car){
+        return new RentalEvent.Relocated(car.getPlate(), stationId(car));
+    }
+
+    private static Long stationId(Car car){
+        return car.getLocation() == null ? null : car.getLocation().getId();
+    }
+
+    // every car known at startup is covered, others are checked with an exists query until a fleet search loads them,
+    // so are bookings reaching back before the horizon
+    private boolean isAvailable(Rental rental){
+        var plate = rental.getCar().getPlate();
+        return availabilityIndex.isAvailable(plate, rental.getBeginning(), rental.getEnd(), rental.getId(),
+                () -> jpaRentalRepository.isCarAvailable(plate, rental.getBeginning(), rental.getEnd(), rental.getId()));
+    }
+
+    // the history answers in place of the database when the batch reaches back before the horizon
+    private boolean isAvailable(Rental rental, AvailabilityIndex history){
+        var plate = rental.getCar().getPlate();
+        var beginning = rental.getBeginning();
+        var end = rental.getEnd();
+        var id = rental.getId();
+        return availabilityIndex.isAvailable(plate, beginning, end, id, () -> history.isAvailable(plate, beginning, end, id,
+                () -> jpaRentalRepository.isCarAvailable(plate, beginning, end, id)));
+    }
+
+    // the periods of the cars from the given time on, read in one query when the index no longer holds them
+    private AvailabilityIndex history(Collection<String> plates, LocalDateTime from){
+        var history = new AvailabilityIndex();
+        if (!plates.isEmpty() && from.isBefore(availabilityIndex.horizon()))
+            history.load(plates, jpaRentalRepository.findRentalPeriods(plates, from));
+        return history;
+    }
+
+    private LocalDateTime horizon(){
+        return LocalDateTime.now(clock).minus(HISTORY);
+    }
+
+    private <T> boolean isValid(T entity, List<BatchResult.Failure<T>> failed){
+        var violations = VALIDATOR.validate(entity);
+        if (violations.isEmpty())
+            return true;
+        failed.add(new BatchResult.Failure<>(entity, new ConstraintViolationException(violations)));
+        return false;
+    }
+
+    private <T> BatchResult<T> safeAll(Class<T> tClass, List<T> entities, List<BatchResult.Failure<T>> failed){
+        try {
+            return new BatchResult<>(jpaGenericRepository.safeAll(tClass, entities), failed);
+        }
+        catch (RuntimeException e) {
+            // a unit of work cannot go on after a failed flush, it is rolled back as a whole
+            if (entityManagers.isBound())
+                throw e;
+            entities.forEach(entity -> failed.add(new BatchResult.Failure<>(entity, e)));
+            return new BatchResult<>(List.of(), failed);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package service;
+
+public record MethodStatistics(String method,
+                               long calls,
+                               long errors,
+                               long statements,
+                               double p50Micros,
+                               double p99Micros,
+                               double p999Micros,
+                               double maxMicros) {
+}
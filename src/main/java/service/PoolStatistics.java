@@ -0,0 +1,12 @@
+package service;
+
+public record PoolStatistics(int maximumPoolSize,
+                             int activeConnections,
+                             int idleConnections,
+                             int totalConnections,
+                             int threadsAwaitingConnection,
+                             long acquiredConnections,
+                             double averageWaitMillis,
+                             double maxWaitMillis,
+                             long timeouts) {
+}
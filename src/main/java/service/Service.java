@@ -1,26 +1,103 @@
 package service;
 
 import domain.*;
+import domain.projections.CarMileage;
+import domain.projections.CarOccupancy;
+import domain.projections.CarSummary;
+import domain.projections.MonthlyMileage;
+import domain.projections.RentalSummary;
+import domain.projections.StationRentals;
+import domain.projections.StationSummary;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface Service {
 
+    // runs the work as one unit of work: every call on the given service shares one persistence context and one
+    // transaction, which commits when the work returns and rolls back when it throws. Cars booked inside stay
+    // locked until then, so book several cars in one saveAllRentals call rather than one after another.
+    <R> R inTransaction(Function<? super Service, R> work);
+
     Rental save(Rental rental);
 
     Station save(Station station);
 
     Car save(Car car);
 
+    BatchResult<Rental> saveAllRentals(Collection<Rental> rentals);
+
+    BatchResult<Station> saveAllStations(Collection<Station> stations);
+
+    BatchResult<Car> saveAllCars(Collection<Car> cars);
+
     List<Station> findAllStations();
 
     List<Car> findAllCars();
 
-    List<Rental> findAllRentals();
+    default List<Rental> findAllRentals() {
+        return findAllRentals(RentalGraph.FULL);
+    }
+
+    List<Rental> findAllRentals(RentalGraph graph);
+
+    List<StationSummary> findStationSummaries();
+
+    List<CarSummary> findCarSummaries();
+
+    List<RentalSummary> findRentalSummaries();
+
+    List<Station> findStationsAfter(Long lastId, int limit);
+
+    List<Car> findCarsAfter(String lastPlate, int limit);
+
+    List<Rental> findRentalsAfter(Long lastId, int limit);
+
+    // the returned streams hold a database cursor and have to be closed by the caller. Outside inTransaction the rows
+    // are detached as they are handed out; inside it every row stays in the unit of work's persistence context until
+    // the work returns, so memory grows with the rows. Export large tables outside a unit of work.
+    Stream<Station> streamAllStations();
+
+    Stream<Car> streamAllCars();
 
-    Optional<Rental> findRentalById(long id);
+    Stream<Rental> streamAllRentals();
+
+    default Optional<Rental> findRentalById(long id) {
+        return findRentalById(id, RentalGraph.FULL);
+    }
+
+    Optional<Rental> findRentalById(long id, RentalGraph graph);
 
     Set<Car> findCarsStationedAt(Station station);
 
+    // cars at the station without a rental overlapping [from, to), an open window when to is null
+    Set<Car> findAvailableCars(Station station, LocalDateTime from, LocalDateTime to);
+
     Rental finish(Rental rental, Station station, double drivenKm);
+
+    // answered from in-memory counters, keyed by station id; cars out on a rental count at the station they are stationed at
+    long countCarsAt(Station station);
+
+    Map<Long, Long> inventorySnapshot();
+
+    void rebuildInventory();
+
+    // reports over the rentals beginning in [from, to)
+    List<StationRentals> countRentalsPerStation(LocalDateTime from, LocalDateTime to);
+
+    List<CarMileage> findMileagePerCar(LocalDateTime from, LocalDateTime to);
+
+    List<MonthlyMileage> findMileagePerMonth(LocalDateTime from, LocalDateTime to);
+
+    List<CarOccupancy> findOccupancy(LocalDateTime from, LocalDateTime to);
+
+    Optional<Duration> averageRentalDuration(LocalDateTime from, LocalDateTime to);
+
+    CacheStatistics cacheStatistics();
+
+    // empty when the connections do not come from the HikariCP pool
+    Optional<PoolStatistics> poolStatistics();
 }
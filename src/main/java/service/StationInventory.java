@@ -0,0 +1,108 @@
+package service;
+
+import domain.projections.CarSummary;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Number of cars per station, kept up to date as cars are saved and rentals finished.
+ * A car counts at the station it is stationed at, also while it is rented out, the same cars
+ * {@code findCarsStationedAt} returns. Every car is counted at most once because moves go through
+ * {@code stationByPlate.compute}, which runs atomically per plate.
+ * A rebuild fills fresh counters and swaps them in; moves made while the cars are loaded are applied
+ * to the fresh counters as well, so none is lost or counted twice.
+ */
+public class StationInventory {
+
+    private final ReadWriteLock swap = new ReentrantReadWriteLock();
+    private volatile Counts counts = new Counts();
+    // moves made during a rebuild, guarded by swap
+    private Queue<Move> moved;
+
+    public synchronized void rebuild(Supplier<? extends Collection<CarSummary>> cars){
+        var recorded = new ConcurrentLinkedQueue<Move>();
+        var fresh = new Counts();
+        recordMoves(recorded);
+        try {
+            cars.get().forEach(car -> fresh.move(car.plate(), car.stationId()));
+        }
+        catch (RuntimeException e){
+            recordMoves(null);
+            throw e;
+        }
+
+        swap.writeLock().lock();
+        try {
+            recorded.forEach(move -> fresh.move(move.plate(), move.stationId()));
+            counts = fresh;
+            moved = null;
+        }
+        finally {
+            swap.writeLock().unlock();
+        }
+    }
+
+    public void move(String plate, Long stationId){
+        swap.readLock().lock();
+        try {
+            counts.move(plate, stationId);
+            if(moved != null)
+                moved.add(new Move(plate, stationId));
+        }
+        finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    public long count(Long stationId){
+        var counter = counts.countsByStation.get(stationId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public Map<Long, Long> snapshot(){
+        return counts.countsByStation.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    private void recordMoves(Queue<Move> recorded){
+        swap.writeLock().lock();
+        try {
+            moved = recorded;
+        }
+        finally {
+            swap.writeLock().unlock();
+        }
+    }
+
+    private record Move(String plate, Long stationId) {
+    }
+
+    private static class Counts {
+
+        private final Map<Long, LongAdder> countsByStation = new ConcurrentHashMap<>();
+        private final Map<String, Long> stationByPlate = new ConcurrentHashMap<>();
+
+        private void move(String plate, Long stationId){
+            stationByPlate.compute(plate, (p, previous) -> {
+                if(previous != null)
+                    counter(previous).decrement();
+                if(stationId != null)
+                    counter(stationId).increment();
+                return stationId;
+            });
+        }
+
+        private LongAdder counter(Long stationId){
+            return countsByStation.computeIfAbsent(stationId, id -> new LongAdder());
+        }
+    }
+}
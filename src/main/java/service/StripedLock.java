@@ -0,0 +1,39 @@
+package service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+public class StripedLock {
+
+    private final Lock[] stripes;
+
+    public StripedLock(int stripes){
+        if(stripes <= 0)
+            throw new IllegalArgumentException();
+        this.stripes = IntStream.range(0, stripes)
+                .mapToObj(i -> new ReentrantLock())
+                .toArray(Lock[]::new);
+    }
+
+    public Lock get(Object key){
+        return stripes[indexOf(key)];
+    }
+
+    // always in stripe order, so two callers locking overlapping keys cannot deadlock
+    public List<Lock> getAll(Collection<?> keys){
+        return keys.stream()
+                .mapToInt(this::indexOf)
+                .distinct()
+                .sorted()
+                .mapToObj(index -> stripes[index])
+                .toList();
+    }
+
+    private int indexOf(Object key){
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
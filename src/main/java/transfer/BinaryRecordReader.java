@@ -0,0 +1,68 @@
+package transfer;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+class BinaryRecordReader implements RecordReader {
+
+    private final DataInputStream in;
+
+    BinaryRecordReader(ReadableByteChannel channel, List<String> columns) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), RecordWriter.BUFFER_SIZE));
+        if (in.readInt() != BinaryRecordWriter.MAGIC)
+            throw new IOException("not a binary transfer file");
+        int count = in.readUnsignedShort();
+        var header = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++)
+            header.add(in.readUTF());
+        if (!header.equals(columns))
+            throw new IOException("expected header " + columns + " but found " + header);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        try {
+            return switch (in.readByte()) {
+                case BinaryRecordWriter.RECORD -> true;
+                case BinaryRecordWriter.END -> false;
+                default -> throw new IOException("corrupt binary transfer file");
+            };
+        }
+        catch (EOFException e) {
+            throw new IOException("truncated binary transfer file", e);
+        }
+    }
+
+    @Override
+    public String readString() throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public Long readLong() throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    @Override
+    public Double readDouble() throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    @Override
+    public LocalDateTime readTime() throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
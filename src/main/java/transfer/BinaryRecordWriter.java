@@ -0,0 +1,76 @@
+package transfer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+// magic, the column names, then every record behind a RECORD marker and END after the last one
+class BinaryRecordWriter implements RecordWriter {
+
+    static final int MAGIC = 0x43524E54;
+    static final byte RECORD = 1;
+    static final byte END = 0;
+
+    private final DataOutputStream out;
+    private boolean inRecord;
+
+    BinaryRecordWriter(WritableByteChannel channel, List<String> columns) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeShort(columns.size());
+        for (var column : columns)
+            out.writeUTF(column);
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        if (present(value))
+            out.writeUTF(value);
+    }
+
+    @Override
+    public void writeLong(Long value) throws IOException {
+        if (present(value))
+            out.writeLong(value);
+    }
+
+    @Override
+    public void writeDouble(Double value) throws IOException {
+        if (present(value))
+            out.writeDouble(value);
+    }
+
+    @Override
+    public void writeTime(LocalDateTime value) throws IOException {
+        if (present(value)) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    @Override
+    public void endRecord() {
+        inRecord = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            out.writeByte(END);
+        }
+    }
+
+    private boolean present(Object value) throws IOException {
+        if (!inRecord) {
+            out.writeByte(RECORD);
+            inRecord = true;
+        }
+        out.writeBoolean(value != null);
+        return value != null;
+    }
+}
@@ -0,0 +1,17 @@
+package transfer;
+
+import java.util.List;
+
+final class Columns {
+
+    static final List<String> STATIONS = List.of("id", "title");
+    static final List<String> CARS = List.of("plate", "mileage", "model", "stationId");
+    static final List<String> RENTALS = List.of("id", "plate", "beginning", "end", "drivenKm", "rentalStationId", "returnStationId");
+
+    private Columns() {
+    }
+
+    static String fileName(String entity, Format format) {
+        return entity + (format == Format.CSV ? ".csv" : ".bin");
+    }
+}
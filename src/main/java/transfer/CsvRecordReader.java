@@ -0,0 +1,135 @@
+package transfer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class CsvRecordReader implements RecordReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[RecordWriter.BUFFER_SIZE];
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private int index;
+    private long line;
+
+    CsvRecordReader(ReadableByteChannel channel, List<String> columns) throws IOException {
+        this.in = Channels.newReader(channel, StandardCharsets.UTF_8);
+        if (!next() || !fields.equals(columns))
+            throw new IOException("expected header " + columns + " but found " + fields);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        fields.clear();
+        index = 0;
+        int c = read();
+        if (c == -1)
+            return false;
+        line++;
+
+        boolean quoted = false;
+        boolean inQuotes = false;
+        field.setLength(0);
+        while (true) {
+            if (inQuotes) {
+                if (c == -1)
+                    throw new IOException("unterminated quote in record " + line);
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            }
+            else if (c == '"' && field.isEmpty() && !quoted)
+                inQuotes = quoted = true;
+            else if (c == ',') {
+                addField(quoted);
+                quoted = false;
+            }
+            else if (c == '\n' || c == -1) {
+                addField(quoted);
+                return true;
+            }
+            else if (c != '\r')
+                field.append((char) c);
+            c = read();
+        }
+    }
+
+    @Override
+    public String readString() throws IOException {
+        return nextField();
+    }
+
+    @Override
+    public Long readLong() throws IOException {
+        var value = nextField();
+        try {
+            return value == null ? null : Long.valueOf(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("invalid number in record " + line, e);
+        }
+    }
+
+    @Override
+    public Double readDouble() throws IOException {
+        var value = nextField();
+        try {
+            return value == null ? null : Double.valueOf(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("invalid number in record " + line, e);
+        }
+    }
+
+    @Override
+    public LocalDateTime readTime() throws IOException {
+        var value = nextField();
+        try {
+            return value == null ? null : LocalDateTime.parse(value);
+        }
+        catch (RuntimeException e) {
+            throw new IOException("invalid timestamp in record " + line, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String nextField() throws IOException {
+        if (index >= fields.size())
+            throw new IOException("too few fields in record " + line);
+        return fields.get(index++);
+    }
+
+    private void addField(boolean quoted) {
+        fields.add(field.isEmpty() && !quoted ? null : field.toString());
+        field.setLength(0);
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
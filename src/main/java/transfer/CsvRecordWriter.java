@@ -0,0 +1,76 @@
+package transfer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// RFC 4180 style: a header line, comma separated fields, an unquoted empty field is null
+class CsvRecordWriter implements RecordWriter {
+
+    private final Writer out;
+    private boolean firstField = true;
+
+    CsvRecordWriter(WritableByteChannel channel, List<String> columns) throws IOException {
+        this.out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        for (var column : columns)
+            writeString(column);
+        endRecord();
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        separate();
+        if (value == null)
+            return;
+        if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+        else
+            out.write(value);
+    }
+
+    @Override
+    public void writeLong(Long value) throws IOException {
+        separate();
+        if (value != null)
+            out.write(Long.toString(value));
+    }
+
+    @Override
+    public void writeDouble(Double value) throws IOException {
+        separate();
+        if (value != null)
+            out.write(Double.toString(value));
+    }
+
+    @Override
+    public void writeTime(LocalDateTime value) throws IOException {
+        separate();
+        if (value != null)
+            out.write(value.toString());
+    }
+
+    @Override
+    public void endRecord() throws IOException {
+        out.write('\n');
+        firstField = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separate() throws IOException {
+        if (!firstField)
+            out.write(',');
+        firstField = false;
+    }
+}
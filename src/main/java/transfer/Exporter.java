@@ -0,0 +1,83 @@
+package transfer;
+
+import domain.Station;
+import service.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams stations, cars and rentals from the database into CSV or binary files.
+ * Entities are read through the service's scrolling streams, so memory use does not grow with the table size.
+ * {@code progress} receives the number of records written so far.
+ */
+public class Exporter {
+
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final Service service;
+
+    public Exporter(Service service) {
+        this.service = service;
+    }
+
+    public void exportAll(Path directory, Format format, LongConsumer progress) throws IOException {
+        exportStations(directory.resolve(Columns.fileName("stations", format)), format, progress);
+        exportCars(directory.resolve(Columns.fileName("cars", format)), format, progress);
+        exportRentals(directory.resolve(Columns.fileName("rentals", format)), format, progress);
+    }
+
+    public long exportStations(Path file, Format format, LongConsumer progress) throws IOException {
+        return export(service.streamAllStations(), file, format, Columns.STATIONS, progress, (station, out) -> {
+            out.writeLong(station.getId());
+            out.writeString(station.getTitle());
+        });
+    }
+
+    public long exportCars(Path file, Format format, LongConsumer progress) throws IOException {
+        return export(service.streamAllCars(), file, format, Columns.CARS, progress, (car, out) -> {
+            out.writeString(car.getPlate());
+            out.writeDouble(car.getMileage());
+            out.writeString(car.getModel());
+            out.writeLong(id(car.getLocation()));
+        });
+    }
+
+    public long exportRentals(Path file, Format format, LongConsumer progress) throws IOException {
+        return export(service.streamAllRentals(), file, format, Columns.RENTALS, progress, (rental, out) -> {
+            out.writeLong(rental.getId());
+            out.writeString(rental.getCar().getPlate());
+            out.writeTime(rental.getBeginning());
+            out.writeTime(rental.getEnd());
+            out.writeDouble(rental.getDrivenKm());
+            out.writeLong(id(rental.getRentalStation()));
+            out.writeLong(id(rental.getReturnStation()));
+        });
+    }
+
+    private static <T> long export(Stream<T> entities, Path file, Format format, List<String> columns,
+                                   LongConsumer progress, Fields<T> fields) throws IOException {
+        long count = 0;
+        try (entities; var out = RecordWriter.open(file, format, columns)) {
+            for (var iterator = entities.iterator(); iterator.hasNext(); ) {
+                fields.write(iterator.next(), out);
+                out.endRecord();
+                if (++count % PROGRESS_INTERVAL == 0)
+                    progress.accept(count);
+            }
+        }
+        progress.accept(count);
+        return count;
+    }
+
+    private static Long id(Station station) {
+        return station == null ? null : station.getId();
+    }
+
+    private interface Fields<T> {
+        void write(T entity, RecordWriter out) throws IOException;
+    }
+}
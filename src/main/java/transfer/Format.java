@@ -0,0 +1,6 @@
+package transfer;
+
+public enum Format {
+    CSV,
+    BINARY
+}
@@ -0,0 +1,8 @@
+package transfer;
+
+public record ImportResult(long imported, long failed) {
+
+    public boolean isCompleteSuccess(){
+        return failed == 0;
+    }
+}
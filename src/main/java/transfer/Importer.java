@@ -0,0 +1,172 @@
+package transfer;
+
+import domain.Car;
+import domain.Rental;
+import domain.Station;
+import service.BatchResult;
+import service.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Loads files written by {@link Exporter} through the service's batch saves, one chunk at a time.
+ * Stations get new ids on import; the importer remembers which id in the file became which station,
+ * so stations have to be imported before the cars and rentals referring to them, using the same importer.
+ * Station ids unknown to the importer are looked up among the stations already in the database.
+ * {@code progress} receives the number of records read so far.
+ */
+public class Importer {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final Service service;
+    private final Map<Long, Station> stationsById = new HashMap<>();
+    private final Map<String, Car> carsByPlate = new HashMap<>();
+    private boolean existingStationsLoaded;
+    private boolean existingCarsLoaded;
+
+    public Importer(Service service) {
+        this.service = service;
+    }
+
+    public ImportResult importAll(Path directory, Format format, LongConsumer progress) throws IOException {
+        var stations = importStations(directory.resolve(Columns.fileName("stations", format)), format, progress);
+        var cars = importCars(directory.resolve(Columns.fileName("cars", format)), format, progress);
+        var rentals = importRentals(directory.resolve(Columns.fileName("rentals", format)), format, progress);
+        return new ImportResult(
+                stations.imported() + cars.imported() + rentals.imported(),
+                stations.failed() + cars.failed() + rentals.failed());
+    }
+
+    public ImportResult importStations(Path file, Format format, LongConsumer progress) throws IOException {
+        var fileIds = new HashMap<Station, Long>();
+        return importChunks(file, format, Columns.STATIONS, progress,
+                in -> {
+                    var fileId = in.readLong();
+                    var station = new Station(null, in.readString());
+                    fileIds.put(station, fileId);
+                    return station;
+                },
+                chunk -> {
+                    var result = service.saveAllStations(chunk);
+                    for (var station : result.saved())
+                        stationsById.put(fileIds.get(station), station);
+                    fileIds.clear();
+                    return result;
+                });
+    }
+
+    public ImportResult importCars(Path file, Format format, LongConsumer progress) throws IOException {
+        return importChunks(file, format, Columns.CARS, progress,
+                in -> {
+                    var plate = in.readString();
+                    var mileage = in.readDouble();
+                    var model = in.readString();
+                    var stationId = in.readLong();
+                    var station = station(stationId);
+                    if (plate == null || mileage == null || stationId != null && station == null)
+                        return null;
+                    return new Car(plate, mileage, model, station);
+                },
+                chunk -> {
+                    var result = service.saveAllCars(chunk);
+                    // merged cars come back with the version they were stored with
+                    result.saved().forEach(car -> carsByPlate.put(car.getPlate(), car));
+                    return result;
+                });
+    }
+
+    public ImportResult importRentals(Path file, Format format, LongConsumer progress) throws IOException {
+        return importChunks(file, format, Columns.RENTALS, progress,
+                in -> {
+                    in.readLong();
+                    var car = car(in.readString());
+                    var beginning = in.readTime();
+                    var end = in.readTime();
+                    var drivenKm = in.readDouble();
+                    var rentalStationId = in.readLong();
+                    var returnStationId = in.readLong();
+                    var rentalStation = station(rentalStationId);
+                    var returnStation = station(returnStationId);
+                    if (car == null || rentalStationId != null && rentalStation == null || returnStationId != null && returnStation == null)
+                        return null;
+                    return Rental.builder()
+                            .car(car)
+                            .beginning(beginning)
+                            .end(end)
+                            .drivenKm(drivenKm)
+                            .rentalStation(rentalStation)
+                            .returnStation(returnStation)
+                            .build();
+                },
+                service::saveAllRentals);
+    }
+
+    // rows the reader maps to null refer to unknown stations or cars and count as failed
+    private static <T> ImportResult importChunks(Path file, Format format, List<String> columns, LongConsumer progress,
+                                                 Row<T> row, Function<List<T>, BatchResult<T>> save) throws IOException {
+        long read = 0;
+        long imported = 0;
+        long failed = 0;
+        var chunk = new ArrayList<T>(CHUNK_SIZE);
+        try (var in = RecordReader.open(file, format, columns)) {
+            while (in.next()) {
+                var entity = row.read(in);
+                read++;
+                if (entity == null)
+                    failed++;
+                else
+                    chunk.add(entity);
+                if (chunk.size() == CHUNK_SIZE) {
+                    var result = save.apply(chunk);
+                    imported += result.saved().size();
+                    failed += result.failed().size();
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    progress.accept(read);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            var result = save.apply(chunk);
+            imported += result.saved().size();
+            failed += result.failed().size();
+        }
+        progress.accept(read);
+        return new ImportResult(imported, failed);
+    }
+
+    private Station station(Long id) {
+        if (id == null)
+            return null;
+        var station = stationsById.get(id);
+        if (station == null && !existingStationsLoaded) {
+            service.findAllStations().forEach(existing -> stationsById.putIfAbsent(existing.getId(), existing));
+            existingStationsLoaded = true;
+            station = stationsById.get(id);
+        }
+        return station;
+    }
+
+    private Car car(String plate) {
+        if (plate == null)
+            return null;
+        var car = carsByPlate.get(plate);
+        if (car == null && !existingCarsLoaded) {
+            service.findAllCars().forEach(existing -> carsByPlate.put(existing.getPlate(), existing));
+            existingCarsLoaded = true;
+            car = carsByPlate.get(plate);
+        }
+        return car;
+    }
+
+    private interface Row<T> {
+        T read(RecordReader in) throws IOException;
+    }
+}
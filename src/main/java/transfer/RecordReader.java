@@ -0,0 +1,37 @@
+package transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// reads records written by a RecordWriter with the same columns, fields in the order they were written
+interface RecordReader extends Closeable {
+
+    static RecordReader open(Path file, Format format, List<String> columns) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return switch (format) {
+                case CSV -> new CsvRecordReader(channel, columns);
+                case BINARY -> new BinaryRecordReader(channel, columns);
+            };
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    boolean next() throws IOException;
+
+    String readString() throws IOException;
+
+    Long readLong() throws IOException;
+
+    Double readDouble() throws IOException;
+
+    LocalDateTime readTime() throws IOException;
+}
@@ -0,0 +1,39 @@
+package transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// writes records field by field, null is allowed for every field
+interface RecordWriter extends Closeable {
+
+    int BUFFER_SIZE = 1 << 16;
+
+    static RecordWriter open(Path file, Format format, List<String> columns) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return switch (format) {
+                case CSV -> new CsvRecordWriter(channel, columns);
+                case BINARY -> new BinaryRecordWriter(channel, columns);
+            };
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    void writeString(String value) throws IOException;
+
+    void writeLong(Long value) throws IOException;
+
+    void writeDouble(Double value) throws IOException;
+
+    void writeTime(LocalDateTime value) throws IOException;
+
+    void endRecord() throws IOException;
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import domain.Rental;
+import domain.RentalGraph;
+import domain.projections.CarMileage;
+import domain.projections.CarOccupancy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// mileage per car aggregated by the database against loading every rental and grouping in Java
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+    @Benchmark
+    public List<CarMileage> mileagePerCarInDatabase(BenchmarkDatabase database) {
+        return database.service.findMileagePerCar(FROM, TO);
+    }
+
+    @Benchmark
+    public Map<String, Double> mileagePerCarInJava(BenchmarkDatabase database) {
+        return database.service.findAllRentals(RentalGraph.SUMMARY).stream()
+                .filter(rental -> rental.getDrivenKm() != null)
+                .collect(Collectors.groupingBy(rental -> rental.getCar().getPlate(),
+                        Collectors.summingDouble(Rental::getDrivenKm)));
+    }
+
+    @Benchmark
+    public List<CarOccupancy> occupancy(BenchmarkDatabase database) {
+        return database.service.findOccupancy(LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.of(2001, 1, 1, 0, 0));
+    }
+}
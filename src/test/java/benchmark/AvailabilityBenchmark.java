@@ -0,0 +1,77 @@
+package benchmark;
+
+import domain.Car;
+import domain.Rental;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import persistance.JPARentalRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+
+    private static final String ENTITY_JPQL = """
+            Select rental from Rental rental
+            where rental.car.plate = :plate and
+            rental.beginning < :end and
+            (rental.end is null or rental.end > :start)
+            """;
+
+    private JPARentalRepository repository;
+
+    @Setup(Level.Trial)
+    public void createRepository(BenchmarkDatabase database) {
+        repository = new JPARentalRepository(database.factory);
+    }
+
+    @Benchmark
+    public boolean existsQuery(BenchmarkDatabase database) {
+        var start = randomStart();
+        return repository.isCarAvailable(randomCar(database), start, start.plusDays(1));
+    }
+
+    // the former implementation, loading every overlapping rental with its associations
+    @Benchmark
+    public boolean entityQuery(BenchmarkDatabase database) {
+        var start = randomStart();
+        var entityManager = database.factory.createEntityManager();
+        try {
+            return entityManager.createQuery(ENTITY_JPQL, Rental.class)
+                    .setParameter("plate", database.randomSeedPlate())
+                    .setParameter("start", start)
+                    .setParameter("end", start.plusDays(1))
+                    .getResultList()
+                    .isEmpty();
+        }
+        finally {
+            entityManager.close();
+        }
+    }
+
+    private static Car randomCar(BenchmarkDatabase database) {
+        var car = new Car();
+        car.setPlate(database.randomSeedPlate());
+        return car;
+    }
+
+    private static LocalDateTime randomStart() {
+        return LocalDateTime.of(2000, 1, 1, 0, 0).plusDays(ThreadLocalRandom.current().nextInt(1_000));
+    }
+}
@@ -0,0 +1,157 @@
+package benchmark;
+
+import domain.Car;
+import domain.Rental;
+import domain.Station;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.BatchResult;
+import service.JpaService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+    private static final int CHUNK_SIZE = 10_000;
+    private static final LocalDateTime SEED_START = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final AtomicInteger PLATES = new AtomicInteger();
+
+    @Param({"1000"})
+    public int rentals;
+
+    @Param({"100"})
+    public int stations;
+
+    @Param({"10"})
+    public int carsPerStation;
+
+    public EntityManagerFactory factory;
+    public JpaService service;
+    public List<Station> savedStations;
+    public List<Car> savedCars;
+    public long[] rentalIds;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        Logger.getLogger("org.hibernate").setLevel(java.util.logging.Level.SEVERE);
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME, properties());
+        var seeding = new JpaService(factory);
+
+        savedStations = saved(seeding.saveAllStations(
+                IntStream.range(0, stations)
+                        .mapToObj(i -> new Station(null, "Station " + i))
+                        .toList()
+        ));
+
+        int carCount = stations * carsPerStation;
+        savedCars = new ArrayList<>(carCount);
+        for (int from = 0; from < carCount; from += CHUNK_SIZE) {
+            savedCars.addAll(saved(seeding.saveAllCars(
+                    IntStream.range(from, Math.min(from + CHUNK_SIZE, carCount))
+                            .mapToObj(this::seedCar)
+                            .toList()
+            )));
+        }
+
+        rentalIds = new long[rentals];
+        for (int from = 0; from < rentals; from += CHUNK_SIZE) {
+            var saved = saved(seeding.saveAllRentals(
+                    IntStream.range(from, Math.min(from + CHUNK_SIZE, rentals))
+                            .mapToObj(i -> seedRental(i, carCount))
+                            .toList()
+            ));
+            for (int i = 0; i < saved.size(); i++)
+                rentalIds[from + i] = saved.get(i).getId();
+        }
+
+        service = new JpaService(factory);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        factory.close();
+    }
+
+    public Map<String, Object> properties() {
+        var properties = new HashMap<String, Object>();
+        properties.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:car-rental-benchmark");
+        return properties;
+    }
+
+    public Station randomStation() {
+        return savedStations.get(ThreadLocalRandom.current().nextInt(savedStations.size()));
+    }
+
+    public long randomRentalId() {
+        return rentalIds[ThreadLocalRandom.current().nextInt(rentalIds.length)];
+    }
+
+    public String randomSeedPlate() {
+        return seedPlate(ThreadLocalRandom.current().nextInt(stations * carsPerStation));
+    }
+
+    public Car newCar() {
+        return service.save(new Car("N%07d".formatted(PLATES.incrementAndGet()), 0, "Benchmark", randomStation()));
+    }
+
+    private Car seedCar(int index) {
+        return new Car(seedPlate(index), 0, "Model " + index % 10, savedStations.get(index % stations));
+    }
+
+    private Rental seedRental(int index, int carCount) {
+        int carIndex = index % carCount;
+        var beginning = SEED_START.plusDays(2L * (index / carCount));
+        var car = savedCars.get(carIndex);
+        var station = car.getLocation();
+        return Rental.builder()
+                .car(car)
+                .beginning(beginning)
+                .end(beginning.plusDays(1))
+                .drivenKm(100.0)
+                .rentalStation(station)
+                .returnStation(station)
+                .build();
+    }
+
+    private static <T> List<T> saved(BatchResult<T> result) {
+        if (!result.isCompleteSuccess())
+            throw new IllegalStateException("seeding failed", result.failed().get(0).cause());
+        return result.saved();
+    }
+
+    private static String seedPlate(int index) {
+        return "S%07d".formatted(index);
+    }
+
+    public static List<Rental> consecutiveRentals(Car car, Station station, LocalDateTime from, int count) {
+        var rentals = new ArrayList<Rental>(count);
+        for (int i = 0; i < count; i++) {
+            var beginning = from.plusHours(2L * i);
+            rentals.add(Rental.builder()
+                    .car(car)
+                    .beginning(beginning)
+                    .end(beginning.plusHours(1))
+                    .drivenKm(10.0)
+                    .rentalStation(station)
+                    .returnStation(station)
+                    .build());
+        }
+        return rentals;
+    }
+}
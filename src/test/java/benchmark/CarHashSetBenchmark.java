@@ -0,0 +1,71 @@
+package benchmark;
+
+import domain.Car;
+import domain.Station;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarHashSetBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int carsAtStation;
+
+    private List<Car> cars;
+    private List<Car> constantHashCars;
+
+    @Setup(Level.Trial)
+    public void createCars() {
+        var station = new Station(1L, "Wien Mitte");
+        cars = IntStream.range(0, carsAtStation)
+                .mapToObj(i -> new Car("W-%06d".formatted(i), 0, "Model", station))
+                .toList();
+        constantHashCars = IntStream.range(0, carsAtStation)
+                .mapToObj(i -> (Car) new ConstantHashCar("W-%06d".formatted(i), station))
+                .toList();
+    }
+
+    @Benchmark
+    public Set<Car> plateHash() {
+        return new HashSet<>(cars);
+    }
+
+    @Benchmark
+    public Set<Car> classHash() {
+        return new HashSet<>(constantHashCars);
+    }
+
+    // the former Car.hashCode, every car lands in the same bucket
+    private static class ConstantHashCar extends Car {
+
+        ConstantHashCar(String plate, Station station) {
+            super(plate, 0, "Model", station);
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import domain.Car;
+import domain.Rental;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booking throughput with every thread on its own car versus all threads on one car.
+ * Run with {@code -t 1}, {@code -t 4}, ... {@code -t 64} to see how each scales.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentBookingBenchmark {
+
+    private static final LocalDateTime FIRST_SLOT = LocalDateTime.of(1990, 1, 1, 0, 0);
+
+    @State(Scope.Thread)
+    public static class OwnCar {
+
+        private Car car;
+        private long slot;
+
+        @Setup(Level.Trial)
+        public void createCar(BenchmarkDatabase database) {
+            car = database.newCar();
+        }
+
+        Rental nextRental() {
+            return BenchmarkDatabase.consecutiveRentals(car, car.getLocation(), FIRST_SLOT.plusHours(2 * slot++), 1).get(0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedCar {
+
+        private Car car;
+        private final AtomicLong slot = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void createCar(BenchmarkDatabase database) {
+            car = database.newCar();
+        }
+
+        Rental nextRental() {
+            return BenchmarkDatabase.consecutiveRentals(car, car.getLocation(), FIRST_SLOT.plusHours(2 * slot.getAndIncrement()), 1).get(0);
+        }
+    }
+
+    @Benchmark
+    public Rental distinctCars(BenchmarkDatabase database, OwnCar car) {
+        return database.service.save(car.nextRental());
+    }
+
+    @Benchmark
+    public Rental sameCar(BenchmarkDatabase database, SharedCar car) {
+        return database.service.save(car.nextRental());
+    }
+}
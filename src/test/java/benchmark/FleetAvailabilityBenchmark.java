@@ -0,0 +1,58 @@
+package benchmark;
+
+import domain.Car;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import persistance.JPARentalRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// free cars of one station in a working day, from the occupancy bitmaps or with one query per car
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FleetAvailabilityBenchmark {
+
+    private JPARentalRepository repository;
+
+    @Setup(Level.Trial)
+    public void createRepository(BenchmarkDatabase database) {
+        repository = new JPARentalRepository(database.factory);
+    }
+
+    @Benchmark
+    public int occupancyBitmaps(BenchmarkDatabase database) {
+        var start = randomStart(database);
+        return database.service.findAvailableCars(database.randomStation(), start, start.plusHours(8)).size();
+    }
+
+    @Benchmark
+    public int queryPerCar(BenchmarkDatabase database) {
+        var start = randomStart(database);
+        List<Car> available = database.service.findCarsStationedAt(database.randomStation()).stream()
+                .filter(car -> repository.isCarAvailable(car, start, start.plusHours(8)))
+                .toList();
+        return available.size();
+    }
+
+    // seed rentals take a day every other day, so about half the windows hit one
+    private static LocalDateTime randomStart(BenchmarkDatabase database) {
+        int days = Math.max(2, 2 * database.rentals / (database.stations * database.carsPerStation));
+        return LocalDateTime.of(2000, 1, 1, 9, 0).plusDays(ThreadLocalRandom.current().nextInt(days));
+    }
+}
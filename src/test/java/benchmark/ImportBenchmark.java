@@ -0,0 +1,82 @@
+package benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.JpaService;
+import transfer.Exporter;
+import transfer.Format;
+import transfer.ImportResult;
+import transfer.Importer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// one import of the exported benchmark database into a fresh database per iteration, divide by the row count for time per row
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    @Param({"CSV", "BINARY"})
+    public Format format;
+
+    private Path directory;
+    private EntityManagerFactory target;
+
+    @Setup(Level.Trial)
+    public void export(BenchmarkDatabase database) throws IOException {
+        directory = Files.createTempDirectory("car-rental-export");
+        new Exporter(database.service).exportAll(directory, format, progress -> {});
+    }
+
+    @Setup(Level.Iteration)
+    public void createTarget(BenchmarkDatabase database) {
+        var properties = database.properties();
+        properties.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:car-rental-import-" + DATABASES.incrementAndGet());
+        properties.put("jakarta.persistence.sharedCache.mode", "NONE");
+        properties.put("hibernate.cache.use_second_level_cache", "false");
+        properties.put("hibernate.cache.use_query_cache", "false");
+        target = Persistence.createEntityManagerFactory("car-rental", new HashMap<>(properties));
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeTarget() {
+        target.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteExport() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : files.toList())
+                Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public ImportResult importAll() throws IOException {
+        return new Importer(new JpaService(target)).importAll(directory, format, progress -> {});
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InstrumentedService;
+
+import java.util.concurrent.TimeUnit;
+
+// overhead of the decorator on the cheapest call there is, an in-memory counter lookup
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationBenchmark {
+
+    private InstrumentedService enabled;
+    private InstrumentedService disabled;
+
+    @Setup(Level.Trial)
+    public void decorate(BenchmarkDatabase database) {
+        enabled = new InstrumentedService(database.service);
+        disabled = new InstrumentedService(database.service);
+        disabled.setEnabled(false);
+    }
+
+    @Benchmark
+    public long plain(BenchmarkDatabase database) {
+        return database.service.countCarsAt(database.randomStation());
+    }
+
+    @Benchmark
+    public long disabled(BenchmarkDatabase database) {
+        return disabled.countCarsAt(database.randomStation());
+    }
+
+    @Benchmark
+    public long enabled(BenchmarkDatabase database) {
+        return enabled.countCarsAt(database.randomStation());
+    }
+}
@@ -0,0 +1,113 @@
+package benchmark;
+
+import domain.Car;
+import domain.Rental;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JpaServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Booking {
+
+        private Car car;
+        private LocalDateTime next;
+
+        @Setup(Level.Trial)
+        public void createCar(BenchmarkDatabase database) {
+            car = database.newCar();
+            next = LocalDateTime.of(1990, 1, 1, 0, 0);
+        }
+
+        Rental nextRental(BenchmarkDatabase database) {
+            var beginning = next;
+            next = next.plusHours(2);
+            return BenchmarkDatabase.consecutiveRentals(car, car.getLocation(), beginning, 1).get(0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OpenRental {
+
+        private Rental rental;
+
+        @Setup(Level.Invocation)
+        public void book(BenchmarkDatabase database) {
+            var car = database.newCar();
+            rental = database.service.save(Rental.builder()
+                    .car(car)
+                    .beginning(LocalDateTime.of(2000, 1, 1, 0, 0))
+                    .rentalStation(car.getLocation())
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public Rental saveRental(BenchmarkDatabase database, Booking booking) {
+        return database.service.save(booking.nextRental(database));
+    }
+
+    @Benchmark
+    public Rental finish(BenchmarkDatabase database, OpenRental open) {
+        return database.service.finish(open.rental, database.randomStation(), 42.0);
+    }
+
+    @Benchmark
+    public Set<Car> findCarsStationedAt(BenchmarkDatabase database) {
+        return database.service.findCarsStationedAt(database.randomStation());
+    }
+
+    @Benchmark
+    public long countCarsAt(BenchmarkDatabase database) {
+        return database.service.countCarsAt(database.randomStation());
+    }
+
+    @Benchmark
+    public Optional<Rental> findRentalById(BenchmarkDatabase database) {
+        return database.service.findRentalById(database.randomRentalId());
+    }
+
+    @Benchmark
+    public Collection<?> findAllStations(BenchmarkDatabase database) {
+        return database.service.findAllStations();
+    }
+
+    @Benchmark
+    public Collection<?> findAllCars(BenchmarkDatabase database) {
+        return database.service.findAllCars();
+    }
+
+    @Benchmark
+    public List<Rental> findAllRentals(BenchmarkDatabase database) {
+        return database.service.findAllRentals();
+    }
+
+    @Benchmark
+    public void streamAllRentals(BenchmarkDatabase database, Blackhole blackhole) {
+        try (var rentals = database.service.streamAllRentals()) {
+            rentals.forEach(blackhole::consume);
+        }
+    }
+}
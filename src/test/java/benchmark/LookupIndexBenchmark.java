@@ -0,0 +1,124 @@
+package benchmark;
+
+import domain.Car;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// run with -p rentals=1000000 for the numbers the indexes were designed for
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupIndexBenchmark {
+
+    // H2 backs every foreign key with an index, so the station indexes cannot be dropped
+    private static final String CAR_PERIOD_INDEX = "idx_rental_car_period";
+    // serves the reports over rentals beginning in a window
+    private static final String BEGINNING_INDEX = "idx_rental_beginning";
+
+    private static final String OVERLAP_JPQL = """
+            Select rental.id from Rental rental
+            where rental.car.plate = :plate and
+            rental.beginning < :end and
+            (rental.end is null or rental.end > :start)
+            """;
+
+    private static final String CARS_AT_STATION_JPQL = """
+            Select car from Car car
+            where car.location.id = :stationId
+            """;
+
+    private static final String RENTALS_FROM_STATION_JPQL = """
+            Select count(rental) from Rental rental
+            where rental.rentalStation.id = :stationId
+            """;
+
+    @Param({"true", "false"})
+    public boolean indexes;
+
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void prepare(BenchmarkDatabase database) {
+        entityManager = database.factory.createEntityManager();
+        if (!indexes) {
+            entityManager.getTransaction().begin();
+            entityManager.createNativeQuery("drop index if exists " + CAR_PERIOD_INDEX).executeUpdate();
+            entityManager.createNativeQuery("drop index if exists " + BEGINNING_INDEX).executeUpdate();
+            entityManager.getTransaction().commit();
+        }
+        expectPlan("""
+                select id from Rental where car_plate = 'S0000001'
+                and beginning < timestamp '2001-01-02 00:00:00'
+                and (endDate is null or endDate > timestamp '2001-01-01 00:00:00')
+                """, CAR_PERIOD_INDEX);
+        expectPlan("""
+                select count(*) from Rental
+                where beginning >= timestamp '2001-01-01 00:00:00' and beginning < timestamp '2001-02-01 00:00:00'
+                """, BEGINNING_INDEX);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        entityManager.close();
+    }
+
+    @Benchmark
+    public List<Long> overlappingRentals(BenchmarkDatabase database) {
+        var start = LocalDateTime.of(2000, 1, 1, 0, 0).plusDays(ThreadLocalRandom.current().nextInt(1_000));
+        entityManager.clear();
+        return entityManager.createQuery(OVERLAP_JPQL, Long.class)
+                .setParameter("plate", database.randomSeedPlate())
+                .setParameter("start", start)
+                .setParameter("end", start.plusDays(1))
+                .setMaxResults(1)
+                .getResultList();
+    }
+
+    @Benchmark
+    public List<Car> carsAtStation(BenchmarkDatabase database) {
+        entityManager.clear();
+        return entityManager.createQuery(CARS_AT_STATION_JPQL, Car.class)
+                .setParameter("stationId", database.randomStation().getId())
+                .getResultList();
+    }
+
+    @Benchmark
+    public Long rentalsFromStation(BenchmarkDatabase database) {
+        return entityManager.createQuery(RENTALS_FROM_STATION_JPQL, Long.class)
+                .setParameter("stationId", database.randomStation().getId())
+                .getSingleResult();
+    }
+
+    @Benchmark
+    public Object mileageOfMonth(BenchmarkDatabase database) {
+        var from = LocalDateTime.of(2000, 1, 1, 0, 0).plusMonths(ThreadLocalRandom.current().nextInt(36));
+        return database.service.findMileagePerMonth(from, from.plusMonths(1));
+    }
+
+    // the trial fails when H2 plans the query differently from what the run is meant to measure
+    private void expectPlan(String sql, String index) {
+        var plan = entityManager.createNativeQuery("explain " + sql).getSingleResult().toString();
+        if (plan.toLowerCase().contains(index) != indexes)
+            throw new IllegalStateException("expected the plan %s %s:%n%s".formatted(indexes ? "to use" : "not to use", index, plan));
+    }
+}
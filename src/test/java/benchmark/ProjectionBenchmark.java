@@ -0,0 +1,39 @@
+package benchmark;
+
+import domain.Rental;
+import domain.RentalGraph;
+import domain.projections.RentalSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// run with -prof gc, gc.alloc.rate.norm divided by the rentals parameter is the allocation per row
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Benchmark
+    public List<Rental> fullEntities(BenchmarkDatabase database) {
+        return database.service.findAllRentals(RentalGraph.FULL);
+    }
+
+    @Benchmark
+    public List<Rental> summaryEntities(BenchmarkDatabase database) {
+        return database.service.findAllRentals(RentalGraph.SUMMARY);
+    }
+
+    @Benchmark
+    public List<RentalSummary> summaryRecords(BenchmarkDatabase database) {
+        return database.service.findRentalSummaries();
+    }
+}
@@ -0,0 +1,120 @@
+package benchmark;
+
+import domain.Car;
+import domain.Car_;
+import domain.Station_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import persistance.QueryBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating the queries of findAll and getCarsAtStation from a per-call JPQL string, from the named query
+ * and from the metamodel criteria builder. The prepare benchmarks stop before the statement is executed,
+ * the others run the query against the benchmark database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryPreparationBenchmark {
+
+    @State(Scope.Thread)
+    public static class Session {
+
+        private EntityManager entityManager;
+        private Long stationId;
+
+        @Setup(Level.Trial)
+        public void open(BenchmarkDatabase database) {
+            entityManager = database.factory.createEntityManager();
+        }
+
+        @Setup(Level.Iteration)
+        public void pickStation(BenchmarkDatabase database) {
+            stationId = database.randomStation().getId();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public TypedQuery<Car> prepareFindAllInline(Session session) {
+        String jpql = """
+                    Select t from %s t
+                """.formatted(Car.class.getSimpleName());
+        return session.entityManager.createQuery(jpql, Car.class);
+    }
+
+    @Benchmark
+    public TypedQuery<Car> prepareFindAllNamed(Session session) {
+        return session.entityManager.createNamedQuery("Car.findAll", Car.class);
+    }
+
+    @Benchmark
+    public TypedQuery<Car> prepareFindAllCriteria(Session session) {
+        return QueryBuilder.select(session.entityManager, Car.class).build();
+    }
+
+    @Benchmark
+    public TypedQuery<Car> prepareAtStationInline(Session session) {
+        String jpql = """
+                Select car from Car car\040
+                where car.location.id = :stationId
+                """;
+        return session.entityManager.createQuery(jpql, Car.class)
+                .setParameter("stationId", session.stationId);
+    }
+
+    @Benchmark
+    public TypedQuery<Car> prepareAtStationNamed(Session session) {
+        return session.entityManager.createNamedQuery(Car.AT_STATION, Car.class)
+                .setParameter("stationId", session.stationId);
+    }
+
+    @Benchmark
+    public TypedQuery<Car> prepareAtStationCriteria(Session session) {
+        return QueryBuilder.select(session.entityManager, Car.class)
+                .whereEqual(Car_.location, Station_.id, session.stationId)
+                .build();
+    }
+
+    @Benchmark
+    public List<Car> atStationInline(Session session) {
+        var cars = prepareAtStationInline(session).getResultList();
+        session.entityManager.clear();
+        return cars;
+    }
+
+    @Benchmark
+    public List<Car> atStationNamed(Session session) {
+        var cars = prepareAtStationNamed(session).getResultList();
+        session.entityManager.clear();
+        return cars;
+    }
+
+    @Benchmark
+    public List<Car> atStationCriteria(Session session) {
+        var cars = prepareAtStationCriteria(session).getResultList();
+        session.entityManager.clear();
+        return cars;
+    }
+}
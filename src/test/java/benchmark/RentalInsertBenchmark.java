@@ -0,0 +1,83 @@
+package benchmark;
+
+import domain.Car;
+import domain.Rental;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.BatchResult;
+import service.JpaService;
+
+import domain.Station;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalInsertBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    // "none" gives one sequence round trip per insert, as GenerationType.AUTO did
+    @Param({"pooled-lo", "none"})
+    public String optimizer;
+
+    private EntityManagerFactory factory;
+    private JpaService service;
+    private Car car;
+    private Station station;
+    private LocalDateTime next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Logger.getLogger("org.hibernate").setLevel(java.util.logging.Level.SEVERE);
+        factory = Persistence.createEntityManagerFactory("car-rental", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:car-rental-inserts",
+                "hibernate.id.optimizer.pooled.preferred", optimizer
+        ));
+        service = new JpaService(factory);
+        station = service.save(new Station(null, "Benchmark"));
+        car = service.save(new Car("INSERT1", 0, "Benchmark", station));
+        next = LocalDateTime.of(1990, 1, 1, 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Rental insertOne() {
+        var rental = BenchmarkDatabase.consecutiveRentals(car, station, next, 1).get(0);
+        next = next.plusHours(2);
+        return service.save(rental);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public BatchResult<Rental> insertBatch() {
+        var rentals = BenchmarkDatabase.consecutiveRentals(car, station, next, BATCH);
+        next = next.plusHours(2L * BATCH);
+        return service.saveAllRentals(rentals);
+    }
+}
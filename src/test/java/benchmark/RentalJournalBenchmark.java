@@ -0,0 +1,58 @@
+package benchmark;
+
+import journal.RentalEvent;
+import journal.RentalJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// durable appends per millisecond, run with -t 1 ... -t 64 to see group commit at work
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RentalJournalBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+
+        private final AtomicLong ids = new AtomicLong();
+        private Path file;
+        private RentalJournal journal;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            file = Files.createTempFile("rentals", ".journal");
+            journal = new RentalJournal(file);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            journal.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public void append(Journal journal) {
+        journal.journal.append(new RentalEvent.Booked(journal.ids.incrementAndGet(), "W-123ER", 1L,
+                LocalDateTime.of(2022, 1, 1, 0, 0), null));
+    }
+}
@@ -0,0 +1,41 @@
+package benchmark;
+
+import domain.RentalGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import service.Service;
+
+import java.util.concurrent.TimeUnit;
+
+// one request touching rental, car and station, with a persistence context per call or one for the whole request
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnitOfWorkBenchmark {
+
+    @Benchmark
+    public int separateCalls(BenchmarkDatabase database) {
+        return request(database.service, database.randomRentalId());
+    }
+
+    @Benchmark
+    public int unitOfWork(BenchmarkDatabase database) {
+        long id = database.randomRentalId();
+        return database.service.inTransaction(unit -> request(unit, id));
+    }
+
+    private static int request(Service service, long rentalId) {
+        var rental = service.findRentalById(rentalId, RentalGraph.FULL).orElseThrow();
+        var car = rental.getCar();
+        car.setMileage(car.getMileage() + 1);
+        service.save(car);
+        return service.findCarsStationedAt(rental.getRentalStation()).size();
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import domain.Car;
+import jakarta.persistence.PersistenceException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import persistance.JPAGenericRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updating an existing car, the old persist-then-merge fallback against
+ * {@link JPAGenericRepository#upsert(Object)}.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpsertBenchmark {
+
+    @State(Scope.Thread)
+    public static class Repository {
+
+        private JPAGenericRepository repository;
+        private Car loaded;
+
+        @Setup(Level.Trial)
+        public void create(BenchmarkDatabase database) {
+            repository = new JPAGenericRepository(database.factory);
+        }
+
+        @Setup(Level.Invocation)
+        public void load(BenchmarkDatabase database) {
+            loaded = repository.findByID(database.randomSeedPlate(), Car.class).orElseThrow();
+            loaded.setMileage(loaded.getMileage() + 1);
+        }
+    }
+
+    @Benchmark
+    public Car persistThenMerge(BenchmarkDatabase database, Repository repository) {
+        var car = repository.loaded;
+        var entityManager = database.factory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(car);
+            entityManager.getTransaction().commit();
+            return car;
+        }
+        catch (PersistenceException e) {
+            if (entityManager.getTransaction().isActive())
+                entityManager.getTransaction().rollback();
+            entityManager.clear();
+            entityManager.getTransaction().begin();
+            var merged = entityManager.merge(car);
+            entityManager.getTransaction().commit();
+            return merged;
+        }
+        finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public Car upsert(Repository repository) {
+        return repository.repository.upsert(repository.loaded);
+    }
+
+    @Benchmark
+    public Car upsertFreshInstance(BenchmarkDatabase database, Repository repository) {
+        return repository.repository.upsert(changedSeedCar(database));
+    }
+
+    private static Car changedSeedCar(BenchmarkDatabase database) {
+        return new Car(database.randomSeedPlate(), 0, "Updated", database.randomStation());
+    }
+}
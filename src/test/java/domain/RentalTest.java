@@ -0,0 +1,23 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RentalTest {
+
+    @Test
+    void without_uuid_equals_only_itself() {
+        var time = LocalDateTime.of(2022, 1, 1, 0, 0);
+        var rental = new Rental(null, null, null, null, time, null, null, null, null);
+        var other = new Rental(null, null, null, null, time, null, null, null, null);
+
+        assertThat(rental.hashCode())
+                .isEqualTo(other.hashCode());
+        assertThat(rental)
+                .isEqualTo(rental)
+                .isNotEqualTo(other);
+    }
+}
@@ -0,0 +1,245 @@
+package journal;
+
+import domain.Rental;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.Fixtures;
+import service.JpaService;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RentalJournalTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2022, 1, 1, 12, 30, 15, 500);
+
+    @TempDir
+    private Path directory;
+
+    private Path file() {
+        return directory.resolve("rentals.journal");
+    }
+
+    private static List<RentalEvent> replay(RentalJournal journal) throws IOException {
+        var events = new ArrayList<RentalEvent>();
+        journal.replay(events::add);
+        return events;
+    }
+
+    @Test
+    void replays_appended_events() throws IOException {
+        var events = List.of(
+                new RentalEvent.Booked(1, "W-123ER", 7L, TIME, null),
+                new RentalEvent.Booked(2, "P-VN3X", null, TIME, TIME.plusHours(2)),
+                new RentalEvent.Finished(1, "W-123ER", 8, TIME.plusDays(1), 123.5),
+                new RentalEvent.Relocated("KS-SHV234", null)
+        );
+        try (var journal = new RentalJournal(file())) {
+            events.forEach(journal::append);
+
+            assertThat(replay(journal))
+                    .containsExactlyElementsOf(events);
+        }
+    }
+
+    @Test
+    void continues_after_reopening() throws IOException {
+        try (var journal = new RentalJournal(file())) {
+            journal.append(new RentalEvent.Relocated("W-123ER", 1L));
+        }
+        try (var journal = new RentalJournal(file())) {
+            assertThat(journal.isEmpty())
+                    .isFalse();
+            journal.append(new RentalEvent.Relocated("W-123ER", 2L));
+
+            assertThat(replay(journal))
+                    .containsExactly(
+                            new RentalEvent.Relocated("W-123ER", 1L),
+                            new RentalEvent.Relocated("W-123ER", 2L)
+                    );
+        }
+    }
+
+    @Test
+    void maps_next_region_when_full() throws IOException {
+        var events = IntStream.range(0, 200)
+                .mapToObj(i -> (RentalEvent) new RentalEvent.Booked(i, "W-%05d".formatted(i), 1L, TIME.plusHours(i), null))
+                .toList();
+        try (var journal = new RentalJournal(file(), 128)) {
+            journal.appendAll(events.subList(0, 100));
+            events.subList(100, 200).forEach(journal::append);
+        }
+        try (var journal = new RentalJournal(file(), 128)) {
+            assertThat(replay(journal))
+                    .containsExactlyElementsOf(events);
+        }
+    }
+
+    @Test
+    void stops_at_corrupted_record() throws IOException {
+        long second;
+        try (var journal = new RentalJournal(file())) {
+            journal.append(new RentalEvent.Relocated("W-123ER", 1L));
+            second = journal.replay(event -> {});
+            journal.append(new RentalEvent.Relocated("W-123ER", 2L));
+        }
+        try (var raw = new RandomAccessFile(file().toFile(), "rw")) {
+            raw.seek(second + 10);
+            raw.write(0x7F);
+        }
+
+        try (var journal = new RentalJournal(file())) {
+            assertThat(replay(journal))
+                    .containsExactly(new RentalEvent.Relocated("W-123ER", 1L));
+            journal.append(new RentalEvent.Relocated("W-123ER", 3L));
+
+            assertThat(replay(journal))
+                    .containsExactly(
+                            new RentalEvent.Relocated("W-123ER", 1L),
+                            new RentalEvent.Relocated("W-123ER", 3L)
+                    );
+        }
+    }
+
+    @Test
+    void keeps_all_concurrent_appends() throws Exception {
+        try (var journal = new RentalJournal(file(), 4096)) {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 1_000; i++) {
+                    var event = new RentalEvent.Relocated("W-%05d".formatted(i), (long) i);
+                    executor.submit(() -> journal.append(event));
+                }
+            }
+
+            assertThat(replay(journal))
+                    .hasSize(1_000)
+                    .doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void keeps_writes_not_waited_for() throws IOException {
+        var events = List.<RentalEvent>of(
+                new RentalEvent.Relocated("W-123ER", 1L),
+                new RentalEvent.Relocated("P-VN3X", 2L)
+        );
+        try (var journal = new RentalJournal(file())) {
+            journal.write(events);
+        }
+
+        try (var journal = new RentalJournal(file())) {
+            assertThat(replay(journal))
+                    .containsExactlyElementsOf(events);
+        }
+    }
+
+    @Test
+    void rejects_appends_after_close() throws IOException {
+        var journal = new RentalJournal(file());
+        journal.close();
+
+        assertThatThrownBy(() -> journal.append(new RentalEvent.Relocated("W-123ER", 1L)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Nested
+    class JournalingService {
+
+        private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+        private EntityManagerFactory factory;
+
+        @BeforeAll
+        private static void setLogLevel() {
+            Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+        }
+
+        @BeforeEach
+        void setupDatabase() {
+            factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+            Fixtures.save(factory);
+        }
+
+        @AfterEach
+        void closeFactory() {
+            factory.close();
+        }
+
+        @Test
+        void journals_bookings_finishes_and_relocations() throws IOException {
+            try (var journal = new RentalJournal(file())) {
+                var service = new JpaService(factory, journal);
+                var car = Fixtures.cars.get(3);
+                car.setLocation(Fixtures.stations.get(2));
+                service.save(car);
+                var rental = service.save(Rental.builder()
+                        .beginning(TIME)
+                        .car(Fixtures.cars.get(2))
+                        .rentalStation(Fixtures.stations.get(1))
+                        .build());
+                service.finish(rental, Fixtures.stations.get(0), 42);
+
+                assertThat(replay(journal))
+                        .hasSize(3)
+                        .element(2)
+                        .isInstanceOfSatisfying(RentalEvent.Finished.class, finished -> assertThat(finished.drivenKm())
+                                .isEqualTo(42));
+            }
+        }
+
+        @Test
+        void journals_unit_of_work_only_when_committed() throws IOException {
+            try (var journal = new RentalJournal(file())) {
+                var service = new JpaService(factory, journal);
+                var car = Fixtures.cars.get(3);
+                car.setLocation(Fixtures.stations.get(2));
+
+                assertThatThrownBy(() -> service.inTransaction(unit -> {
+                    unit.save(car);
+                    throw new IllegalStateException();
+                }))
+                        .isInstanceOf(IllegalStateException.class);
+                service.inTransaction(unit -> unit.save(car));
+
+                assertThat(replay(journal))
+                        .containsExactly(new RentalEvent.Relocated(car.getPlate(), Fixtures.stations.get(2).getId()));
+            }
+        }
+
+        @Test
+        void starts_from_database_only() throws IOException {
+            // neither was committed to the database, e.g. it was restored from an older backup
+            var car = Fixtures.cars.get(2);
+            try (var journal = new RentalJournal(file())) {
+                journal.append(new RentalEvent.Booked(1_000, car.getPlate(), 1L, TIME, null));
+                journal.append(new RentalEvent.Relocated(car.getPlate(), Fixtures.stations.get(2).getId()));
+            }
+
+            try (var journal = new RentalJournal(file())) {
+                var service = new JpaService(factory, journal);
+
+                assertThat(service.countCarsAt(Fixtures.stations.get(2)))
+                        .isZero();
+                assertThat(service.save(Rental.builder()
+                        .beginning(TIME.plusDays(1))
+                        .car(car)
+                        .rentalStation(Fixtures.stations.get(1))
+                        .build()).getId())
+                        .isNotNull();
+            }
+        }
+    }
+}
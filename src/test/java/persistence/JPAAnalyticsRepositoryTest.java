@@ -0,0 +1,136 @@
+package persistence;
+
+import domain.projections.CarMileage;
+import domain.projections.CarOccupancy;
+import domain.projections.MonthlyMileage;
+import domain.projections.StationRentals;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.*;
+import persistance.JPAAnalyticsRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JPAAnalyticsRepositoryTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+    private static final LocalDateTime FROM = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    private EntityManagerFactory factory;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabase() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+    }
+
+    @AfterEach
+    void closeFactory() {
+        factory.close();
+    }
+
+    @Test
+    void counts_rentals_per_station() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThat(repository.countRentalsPerStation(FROM, TO))
+                .extracting(StationRentals::title, StationRentals::rentals, StationRentals::drivenKm)
+                .containsExactly(
+                        tuple("Wien Nord", 3L, 2_400.0),
+                        tuple("Wien Mitte", 0L, 0.0),
+                        tuple("St. Pölten", 0L, 0.0)
+                );
+    }
+
+    @Test
+    void sums_mileage_per_car() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThat(repository.findMileagePerCar(FROM, TO))
+                .containsExactly(
+                        new CarMileage("P-VN3X", 1L, 400.0),
+                        new CarMileage("W-123ER", 2L, 2_000.0)
+                );
+    }
+
+    @Test
+    void sums_mileage_per_month() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThat(repository.findMileagePerMonth(FROM, TO))
+                .containsExactly(
+                        new MonthlyMileage(2021, 8, 1L, 400.0),
+                        new MonthlyMileage(2021, 12, 1L, 2_000.0),
+                        new MonthlyMileage(2022, 1, 1L, 0.0)
+                );
+    }
+
+    @Test
+    void counts_only_rentals_beginning_in_window() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThat(repository.findMileagePerCar(LocalDateTime.of(2022, 1, 1, 0, 0), TO))
+                .containsExactly(new CarMileage("W-123ER", 1L, 0.0));
+    }
+
+    @Test
+    void computes_occupancy_of_every_car() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        var occupancy = repository.findOccupancy(
+                LocalDateTime.of(2022, 1, 1, 0, 0),
+                LocalDateTime.of(2022, 1, 5, 0, 0));
+
+        assertThat(occupancy)
+                .extracting(CarOccupancy::plate)
+                .containsExactly("KS-SHV234", "P-VN3X", "W-123ER", "W-456UI");
+        assertThat(occupancy)
+                .filteredOn(car -> car.plate().equals("W-123ER"))
+                .singleElement()
+                .extracting(CarOccupancy::occupancy, InstanceOfAssertFactories.DOUBLE)
+                .isCloseTo(82.0 / 96, Offset.offset(1e-9));
+        assertThat(occupancy)
+                .filteredOn(car -> !car.plate().equals("W-123ER"))
+                .extracting(CarOccupancy::occupancy)
+                .containsOnly(0.0);
+    }
+
+    @Test
+    void averages_duration_of_finished_rentals() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThat(repository.averageRentalDuration(FROM, TO))
+                .contains(Duration.ofMinutes(27 * 60 + 45));
+    }
+
+    @Test
+    void has_no_average_duration_without_finished_rentals() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThat(repository.averageRentalDuration(LocalDateTime.of(2022, 1, 3, 0, 0), TO))
+                .isEmpty();
+    }
+
+    @Test
+    void rejects_empty_window() {
+        var repository = new JPAAnalyticsRepository(factory);
+
+        assertThatThrownBy(() -> repository.findOccupancy(TO, FROM))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,142 @@
+package persistence;
+
+import domain.Car;
+import domain.Station;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.*;
+import persistance.JPAGenericRepository;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JPAGenericRepositoryTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+    private EntityManagerFactory factory;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabase() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+    }
+
+    @AfterEach
+    void closeFactory() {
+        factory.close();
+    }
+
+    @Nested
+    class Upserting {
+
+        @Test
+        void inserts_entity_without_id() {
+            var repository = new JPAGenericRepository(factory);
+
+            var station = repository.upsert(new Station(null, "Linz"));
+
+            assertThat(station.getId())
+                    .isNotNull();
+            assertThat(repository.findByID(station.getId(), Station.class))
+                    .isPresent();
+        }
+
+        @Test
+        void inserts_car_with_new_plate() {
+            var repository = new JPAGenericRepository(factory);
+
+            repository.upsert(new Car("L-NEW1", 0, "Zoe", Fixtures.stations.get(2)));
+
+            assertThat(repository.findAll(Car.class))
+                    .hasSize(5);
+        }
+
+        @Test
+        void updates_existing_car_without_version() {
+            var repository = new JPAGenericRepository(factory);
+            var plate = Fixtures.cars.get(0).getPlate();
+
+            var updated = repository.upsert(new Car(plate, 500, "X3", Fixtures.stations.get(1)));
+
+            assertThat(updated.getVersion())
+                    .isEqualTo(Fixtures.cars.get(0).getVersion() + 1);
+            assertThat(repository.findByID(plate, Car.class))
+                    .get()
+                    .extracting(Car::getModel, Car::getMileage)
+                    .containsExactly("X3", 500.0);
+            assertThat(repository.findAll(Car.class))
+                    .hasSize(4);
+        }
+
+        @Test
+        void keeps_identity_of_station_saved_over_existing_id() {
+            var repository = new JPAGenericRepository(factory);
+            var id = Fixtures.stations.get(1).getId();
+
+            var renamed = repository.upsert(new Station(id, "Wien Hbf"));
+
+            assertThat(renamed)
+                    .isEqualTo(Fixtures.stations.get(1))
+                    .hasSameHashCodeAs(Fixtures.stations.get(1));
+            assertThat(repository.findByID(id, Station.class))
+                    .get()
+                    .isEqualTo(renamed)
+                    .extracting(Station::getTitle)
+                    .isEqualTo("Wien Hbf");
+        }
+
+        @Test
+        void updates_loaded_car() {
+            var repository = new JPAGenericRepository(factory);
+            var car = repository.findByID(Fixtures.cars.get(1).getPlate(), Car.class).orElseThrow();
+            car.setModel("Model S");
+
+            var updated = repository.upsert(car);
+
+            assertThat(updated.getVersion())
+                    .isEqualTo(car.getVersion() + 1);
+            assertThat(repository.findByID(car.getPlate(), Car.class))
+                    .get()
+                    .extracting(Car::getModel)
+                    .isEqualTo("Model S");
+        }
+    }
+
+    @Test
+    void update_rejects_stale_version() {
+        var repository = new JPAGenericRepository(factory);
+        var car = repository.findByID(Fixtures.cars.get(1).getPlate(), Car.class).orElseThrow();
+        car.setModel("Model S");
+        repository.update(car);
+
+        assertThatThrownBy(() -> repository.update(car))
+                .isInstanceOf(OptimisticLockException.class);
+    }
+
+    @Test
+    void update_rejects_entity_without_id() {
+        var repository = new JPAGenericRepository(factory);
+
+        assertThatThrownBy(() -> repository.update(new Station(null, "Linz")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void insert_fails_for_existing_car() {
+        var repository = new JPAGenericRepository(factory);
+
+        assertThatThrownBy(() -> repository.insert(new Car(Fixtures.cars.get(0).getPlate(), 0, "X1", null)))
+                .isInstanceOf(PersistenceException.class);
+    }
+}
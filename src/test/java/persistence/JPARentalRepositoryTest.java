@@ -0,0 +1,179 @@
+package persistence;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import persistance.JPARentalRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JPARentalRepositoryTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+    private EntityManagerFactory factory;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabase() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+    }
+
+    @AfterEach
+    void closeFactory() {
+        factory.close();
+    }
+
+    @Nested
+    class CheckingAvailability {
+
+        @Test
+        void fails_inside_finished_rental() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(1),
+                    LocalDateTime.of(2021, 8, 1, 5, 0),
+                    LocalDateTime.of(2021, 8, 1, 6, 0)))
+                    .isFalse();
+        }
+
+        @Test
+        void fails_when_window_covers_finished_rental() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(1),
+                    LocalDateTime.of(2021, 7, 1, 0, 0),
+                    LocalDateTime.of(2021, 9, 1, 0, 0)))
+                    .isFalse();
+        }
+
+        @Test
+        void fails_after_beginning_of_ongoing_rental() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(0),
+                    LocalDateTime.of(2030, 1, 1, 0, 0),
+                    LocalDateTime.of(2030, 1, 2, 0, 0)))
+                    .isFalse();
+        }
+
+        @Test
+        void fails_for_open_ended_window_before_later_rental() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(1),
+                    LocalDateTime.of(2021, 1, 1, 0, 0),
+                    null))
+                    .isFalse();
+        }
+
+        @Test
+        void works_back_to_back() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(0),
+                    LocalDateTime.of(2022, 1, 2, 10, 0),
+                    LocalDateTime.of(2022, 1, 3, 0, 0)))
+                    .isTrue();
+        }
+
+        @Test
+        void works_for_open_ended_window_after_last_rental() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(1),
+                    LocalDateTime.of(2021, 8, 1, 10, 0),
+                    null))
+                    .isTrue();
+        }
+
+        @Test
+        void ignores_period_of_same_rental() {
+            var repository = new JPARentalRepository(factory);
+            var ongoing = Fixtures.rentals.get(2);
+
+            assertThat(repository.isCarAvailable(ongoing.getCar().getPlate(),
+                    LocalDateTime.of(2022, 1, 4, 0, 0),
+                    null,
+                    ongoing.getId()))
+                    .isTrue();
+            assertThat(repository.isCarAvailable(ongoing.getCar().getPlate(),
+                    LocalDateTime.of(2022, 1, 1, 0, 0),
+                    null,
+                    ongoing.getId()))
+                    .isFalse();
+        }
+
+        @Test
+        void works_for_car_without_rentals() {
+            var repository = new JPARentalRepository(factory);
+
+            assertThat(repository.isCarAvailable(Fixtures.cars.get(2),
+                    LocalDateTime.of(2021, 8, 1, 0, 0),
+                    null))
+                    .isTrue();
+        }
+    }
+
+    @Nested
+    class Finishing {
+
+        private EntityManagerFactory hooked;
+
+        @BeforeEach
+        void createHookedFactory() {
+            // the schema and fixtures of the outer factory are kept
+            var properties = new HashMap<String, Object>(StatementHook.properties());
+            properties.put("hibernate.hbm2ddl.auto", "none");
+            hooked = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME, properties);
+        }
+
+        @AfterEach
+        void closeHookedFactory() {
+            StatementHook.clear();
+            hooked.close();
+        }
+
+        @Test
+        void retries_when_rental_changed_meanwhile() {
+            var repository = new JPARentalRepository(hooked);
+            var ongoing = Fixtures.rentals.get(2);
+            var mileage = ongoing.getCar().getMileage();
+            // commits right before the first attempt writes the rental it read
+            StatementHook.beforeNext(sql -> sql.startsWith("update Rental"), () -> bumpVersion(ongoing.getId()));
+
+            var finished = repository.finish(ongoing, Fixtures.stations.get(1), 25);
+
+            assertThat(StatementHook.clear())
+                    .isFalse();
+            assertThat(finished.getVersion())
+                    .isEqualTo(ongoing.getVersion() + 2);
+            assertThat(finished.getCar().getMileage())
+                    .isEqualTo(mileage + 25);
+        }
+
+        private void bumpVersion(Long rentalId) {
+            var entityManager = hooked.createEntityManager();
+            try {
+                entityManager.getTransaction().begin();
+                entityManager.createQuery("Update Rental rental set rental.version = rental.version + 1 where rental.id = :id")
+                        .setParameter("id", rentalId)
+                        .executeUpdate();
+                entityManager.getTransaction().commit();
+            }
+            finally {
+                entityManager.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package persistence;
+
+import domain.Car;
+import domain.Car_;
+import domain.Rental;
+import domain.Rental_;
+import domain.Station;
+import domain.Station_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.*;
+import persistance.QueryBuilder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryBuilderTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+    private EntityManagerFactory factory;
+    private EntityManager entityManager;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabase() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+        entityManager = factory.createEntityManager();
+    }
+
+    @AfterEach
+    void closeFactory() {
+        entityManager.close();
+        factory.close();
+    }
+
+    @Test
+    void selects_all_without_conditions() {
+        var cars = QueryBuilder.select(entityManager, Car.class)
+                .getResultList();
+
+        assertThat(cars)
+                .containsExactlyInAnyOrderElementsOf(Fixtures.cars);
+    }
+
+    @Test
+    void filters_through_association() {
+        var cars = QueryBuilder.select(entityManager, Car.class)
+                .whereEqual(Car_.location, Station_.id, Fixtures.stations.get(0).getId())
+                .cacheable()
+                .getResultList();
+
+        assertThat(cars)
+                .containsExactlyInAnyOrder(Fixtures.cars.get(0), Fixtures.cars.get(1));
+    }
+
+    @Test
+    void combines_conditions_ordered_and_limited() {
+        var cars = QueryBuilder.select(entityManager, Car.class)
+                .whereGreaterThan(Car_.mileage, 100.0)
+                .orderBy(Car_.plate)
+                .limit(2)
+                .getResultList();
+
+        assertThat(cars)
+                .extracting(Car::getPlate)
+                .containsExactly("KS-SHV234", "W-123ER");
+    }
+
+    @Test
+    void loads_fetch_graph() {
+        var open = QueryBuilder.select(entityManager, Rental.class)
+                .whereNull(Rental_.end)
+                .fetchGraph(Rental.FULL_GRAPH)
+                .getResultList();
+
+        assertThat(open)
+                .singleElement()
+                .satisfies(rental -> assertThat(Hibernate.isInitialized(rental.getCar())).isTrue());
+    }
+
+    @Test
+    void rejects_empty_limit() {
+        var builder = QueryBuilder.select(entityManager, Station.class);
+
+        assertThatThrownBy(() -> builder.limit(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,47 @@
+package persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records the SQL Hibernate prepares on the current thread. Factories created with {@link #properties()} report
+ * to it, {@link #assertQueryCount(int, Supplier)} fails with the offending statements when a call needs more.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final String STATEMENT_INSPECTOR = "hibernate.session_factory.statement_inspector";
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    public static Map<String, Object> properties() {
+        return Map.of(STATEMENT_INSPECTOR, QueryCounter.class.getName());
+    }
+
+    public static <T> T assertQueryCount(int max, Supplier<T> call) {
+        var statements = STATEMENTS.get();
+        statements.clear();
+        var result = call.get();
+        assertThat(List.copyOf(statements))
+                .as("statements of a call allowed at most %d", max)
+                .hasSizeLessThanOrEqualTo(max);
+        return result;
+    }
+
+    public static void assertQueryCount(int max, Runnable call) {
+        assertQueryCount(max, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,42 @@
+package persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Runs an action on the preparing thread right before Hibernate prepares the next matching statement, e.g. to
+ * let another transaction commit in between. Factories created with {@link #properties()} report to it.
+ */
+public class StatementHook implements StatementInspector {
+
+    private static final String STATEMENT_INSPECTOR = "hibernate.session_factory.statement_inspector";
+    private static final AtomicReference<Hook> NEXT = new AtomicReference<>();
+
+    public static Map<String, Object> properties() {
+        return Map.of(STATEMENT_INSPECTOR, StatementHook.class.getName());
+    }
+
+    public static void beforeNext(Predicate<String> statement, Runnable action) {
+        NEXT.set(new Hook(statement, action));
+    }
+
+    // true when the last hook has not run yet
+    public static boolean clear() {
+        return NEXT.getAndSet(null) != null;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var hook = NEXT.get();
+        // cleared before running, so statements of the action itself pass
+        if (hook != null && hook.statement().test(sql) && NEXT.compareAndSet(hook, null))
+            hook.action().run();
+        return sql;
+    }
+
+    private record Hook(Predicate<String> statement, Runnable action) {
+    }
+}
@@ -0,0 +1,155 @@
+package service;
+
+import domain.Car;
+import domain.Rental;
+import domain.exceptions.CarNotAvailableException;
+import org.junit.jupiter.api.*;
+import persistence.Fixtures;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncServiceTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+    private EntityManagerFactory factory;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabase() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+    }
+
+    @AfterEach
+    void closeFactory() {
+        factory.close();
+    }
+
+    @Test
+    void finds_rentals_concurrently() {
+        try (var service = new AsyncService(new JpaService(factory))) {
+            var id = Fixtures.rentals.get(0).getId();
+
+            var lookups = IntStream.range(0, 1_000)
+                    .mapToObj(i -> service.findRentalById(id))
+                    .toList();
+
+            assertThat(lookups)
+                    .allSatisfy(lookup -> assertThat(lookup.join())
+                            .contains(Fixtures.rentals.get(0)));
+        }
+    }
+
+    @Test
+    void books_each_car_once() {
+        try (var service = new AsyncService(new JpaService(factory))) {
+            var time = LocalDateTime.of(2020, 1, 1, 0, 0);
+            var bookings = new ArrayList<CompletableFuture<Rental>>();
+            for (int i = 0; i < 100; i++)
+                bookings.add(service.save(Rental.builder()
+                        .beginning(time.plusMinutes(i))
+                        .car(Fixtures.cars.get(3))
+                        .rentalStation(Fixtures.stations.get(0))
+                        .build()));
+
+            CompletableFuture.allOf(bookings.toArray(CompletableFuture[]::new))
+                    .exceptionally(e -> null)
+                    .join();
+
+            assertThat(bookings)
+                    .filteredOn(booking -> !booking.isCompletedExceptionally())
+                    .hasSize(1);
+            assertThat(bookings)
+                    .filteredOn(CompletableFuture::isCompletedExceptionally)
+                    .allSatisfy(booking -> assertThatThrownBy(booking::join)
+                            .isInstanceOf(CompletionException.class)
+                            .hasCauseInstanceOf(CarNotAvailableException.class));
+        }
+    }
+
+    @Test
+    void finishes_rental() {
+        try (var service = new AsyncService(new JpaService(factory))) {
+            var finished = service.finish(Fixtures.rentals.get(2), Fixtures.stations.get(1), 10).join();
+
+            assertThat(finished.getEnd())
+                    .isNotNull();
+            assertThat(service.findCarsStationedAt(Fixtures.stations.get(1)).join())
+                    .extracting(Car::getPlate)
+                    .contains(Fixtures.cars.get(0).getPlate());
+        }
+    }
+
+    @Test
+    void runs_at_most_max_concurrency_calls_at_once() {
+        var jpaService = new JpaService(factory);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var counting = (Service) Proxy.newProxyInstance(Service.class.getClassLoader(), new Class<?>[]{Service.class},
+                (proxy, method, args) -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                        return method.invoke(jpaService, args);
+                    }
+                    catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    finally {
+                        running.decrementAndGet();
+                    }
+                });
+
+        try (var service = new AsyncService(counting, 3)) {
+            CompletableFuture.allOf(IntStream.range(0, 100)
+                            .mapToObj(i -> service.findCarsStationedAt(Fixtures.stations.get(i % 3)))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+        }
+
+        assertThat(maxRunning.get())
+                .isBetween(1, 3);
+    }
+
+    @Test
+    void rejects_non_positive_concurrency() {
+        assertThatThrownBy(() -> new AsyncService(new JpaService(factory), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void runs_without_connection_pool() {
+        var unpooled = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME, Map.of(
+                "hibernate.connection.provider_class", "org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl",
+                "hibernate.hbm2ddl.auto", "none"));
+        try (var service = new AsyncService(new JpaService(unpooled))) {
+            assertThat(new JpaService(unpooled).poolStatistics())
+                    .isEmpty();
+            assertThat(service.findCarsStationedAt(Fixtures.stations.get(0)).join())
+                    .containsExactlyInAnyOrderElementsOf(Fixtures.cars.subList(0, 2));
+        }
+        finally {
+            unpooled.close();
+        }
+    }
+}
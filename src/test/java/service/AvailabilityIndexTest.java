@@ -0,0 +1,65 @@
+package service;
+
+import domain.projections.RentalPeriod;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityIndexTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final String PLATE = "W-123ER";
+
+    @Test
+    void answers_windows_from_what_it_holds() {
+        var index = new AvailabilityIndex();
+        index.load(List.of(PLATE), List.of(new RentalPeriod(1L, PLATE, TIME, TIME.plusDays(1))));
+
+        assertThat(index.isAvailable(PLATE, TIME.plusHours(1), TIME.plusHours(2), null, () -> true))
+                .isFalse();
+        assertThat(index.isFree(PLATE, TIME.plusDays(1), TIME.plusDays(2), () -> false))
+                .isTrue();
+    }
+
+    @Test
+    void leaves_cars_it_does_not_cover_to_the_fallback() {
+        var index = new AvailabilityIndex();
+
+        assertThat(index.isAvailable(PLATE, TIME, TIME.plusHours(1), null, () -> false))
+                .isFalse();
+    }
+
+    @Test
+    void drops_periods_ended_by_horizon_when_car_is_written() {
+        var index = new AvailabilityIndex();
+        index.load(List.of(PLATE), List.of(new RentalPeriod(1L, PLATE, TIME, TIME.plusDays(1))));
+
+        index.advance(TIME.plusDays(10));
+        index.add(new RentalPeriod(2L, PLATE, TIME.plusDays(20), TIME.plusDays(21)));
+
+        assertThat(index.isAvailable(PLATE, TIME.plusHours(1), TIME.plusHours(2), null, () -> true))
+                .isTrue();
+        assertThat(index.isAvailable(PLATE, TIME.plusDays(20), TIME.plusDays(22), null, () -> true))
+                .isFalse();
+        assertThat(index.isFree(PLATE, TIME.plusDays(10), TIME.plusDays(20), () -> false))
+                .isTrue();
+    }
+
+    @Test
+    void keeps_open_periods_past_the_horizon() {
+        var index = new AvailabilityIndex();
+        index.load(List.of(PLATE), List.of(new RentalPeriod(1L, PLATE, TIME, null)));
+
+        index.advance(TIME.plusDays(10));
+        index.add(new RentalPeriod(2L, "P-VN3X", TIME.plusDays(20), TIME.plusDays(21)));
+        index.end(1L, TIME.plusDays(15));
+
+        assertThat(index.isFree(PLATE, TIME.plusDays(12), TIME.plusDays(13), () -> true))
+                .isFalse();
+        assertThat(index.isFree(PLATE, TIME.plusDays(15), TIME.plusDays(16), () -> false))
+                .isTrue();
+    }
+}
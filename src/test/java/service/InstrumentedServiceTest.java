@@ -0,0 +1,133 @@
+package service;
+
+import domain.Rental;
+import domain.Station;
+import org.junit.jupiter.api.*;
+import persistence.Fixtures;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstrumentedServiceTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+    private EntityManagerFactory factory;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabase() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+    }
+
+    @AfterEach
+    void closeFactory() {
+        factory.close();
+    }
+
+    private static MethodStatistics statistics(InstrumentedService service, String method) {
+        return service.getStatistics().stream()
+                .filter(statistics -> statistics.method().equals(method))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void records_calls_latency_and_statements() {
+        try (var service = new InstrumentedService(new JpaService(factory))) {
+            service.save(new Station(null, "Linz"));
+            service.save(new Station(null, "Graz"));
+
+            assertThat(statistics(service, "save(Station)"))
+                    .satisfies(statistics -> {
+                        assertThat(statistics.calls()).isEqualTo(2);
+                        assertThat(statistics.errors()).isZero();
+                        assertThat(statistics.statements()).isGreaterThanOrEqualTo(2);
+                        assertThat(statistics.p50Micros()).isPositive();
+                        assertThat(statistics.maxMicros()).isGreaterThanOrEqualTo(statistics.p99Micros());
+                    });
+        }
+    }
+
+    @Test
+    void counts_failed_calls() {
+        try (var service = new InstrumentedService(new JpaService(factory))) {
+            assertThatThrownBy(() -> service.save(Rental.builder().build()))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(statistics(service, "save(Rental)"))
+                    .extracting(MethodStatistics::calls, MethodStatistics::errors)
+                    .containsExactly(1L, 1L);
+        }
+    }
+
+    @Test
+    void records_nothing_when_disabled() {
+        try (var service = new InstrumentedService(new JpaService(factory))) {
+            service.setEnabled(false);
+
+            service.findAllStations();
+
+            assertThat(service.getStatistics())
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    void records_calls_inside_unit_of_work() {
+        try (var service = new InstrumentedService(new JpaService(factory))) {
+            service.inTransaction(unit -> unit.findCarsStationedAt(Fixtures.stations.get(0)));
+
+            assertThat(service.getStatistics())
+                    .extracting(MethodStatistics::method)
+                    .containsExactly("findCarsStationedAt", "inTransaction");
+        }
+    }
+
+    @Test
+    void exposes_statistics_over_jmx() throws Exception {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName("jpa-car-rental:type=Instrumentation,name=" + ObjectName.quote("test"));
+        try (var service = new InstrumentedService(new JpaService(factory))) {
+            service.registerMBean("test");
+            service.countCarsAt(Fixtures.stations.get(0));
+
+            assertThat((CompositeData[]) server.getAttribute(name, "Statistics"))
+                    .singleElement()
+                    .satisfies(statistics -> assertThat(statistics.get("calls")).isEqualTo(1L));
+            assertThat((String) server.invoke(name, "dump", null, null))
+                    .contains("countCarsAt");
+        }
+
+        assertThat(server.isRegistered(name))
+                .isFalse();
+    }
+
+    @Test
+    void dumps_periodically() throws InterruptedException {
+        var dumps = new LinkedBlockingQueue<String>();
+        try (var service = new InstrumentedService(new JpaService(factory))) {
+            service.findAllCars();
+            service.startDumping(Duration.ofMillis(10), dumps::add);
+
+            assertThat(dumps.poll(5, TimeUnit.SECONDS))
+                    .contains("findAllCars");
+        }
+    }
+}
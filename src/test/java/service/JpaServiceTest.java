@@ -2,8 +2,15 @@ package service;
 
 import domain.Car;
 import domain.Rental;
+import domain.RentalGraph;
+import domain.Station;
 import domain.exceptions.CarNotAvailableException;
+import domain.projections.CarSummary;
+import domain.projections.RentalSummary;
+import domain.projections.StationSummary;
 import org.assertj.core.api.InstanceOfAssertFactories;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
 import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -12,15 +19,33 @@ import persistence.Fixtures;
 
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 class JpaServiceTest {
 
+    private static final int THREADS = 16;
+
     private static final String PERSISTENCE_UNIT_NAME = "car-rental";
 
     private EntityManagerFactory factory;
@@ -73,6 +98,502 @@ class JpaServiceTest {
                 .containsExactlyInAnyOrderElementsOf(Fixtures.cars.subList(0, 2));
     }
 
+    @Test
+    void caches_cars_at_station() {
+        var service = new JpaService(factory);
+        service.findCarsStationedAt(Fixtures.stations.get(0));
+        var before = service.cacheStatistics();
+
+        var cars = service.findCarsStationedAt(Fixtures.stations.get(0));
+
+        assertThat(cars)
+                .containsExactlyInAnyOrderElementsOf(Fixtures.cars.subList(0, 2));
+        assertThat(service.cacheStatistics().queryCacheHits())
+                .isEqualTo(before.queryCacheHits() + 1);
+    }
+
+    @Test
+    void reports_connection_pool_usage() {
+        var service = new JpaService(factory);
+        service.findAllCars();
+
+        var statistics = service.poolStatistics().orElseThrow();
+
+        assertThat(statistics.maximumPoolSize())
+                .isEqualTo(10);
+        assertThat(statistics.activeConnections())
+                .isZero();
+        assertThat(statistics.totalConnections())
+                .isPositive();
+        assertThat(statistics.acquiredConnections())
+                .isPositive();
+    }
+
+    private static class MovingClock extends Clock {
+
+        private volatile Instant now;
+
+        MovingClock(LocalDateTime now) {
+            set(now);
+        }
+
+        void set(LocalDateTime now) {
+            this.now = now.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static <T> List<Future<T>> runConcurrently(List<Callable<T>> tasks) throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = tasks.stream()
+                    .map(task -> executor.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .toList();
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES))
+                    .isTrue();
+            return futures;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nested
+    class Projecting {
+
+        @Test
+        void rental_summaries() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findRentalSummaries())
+                    .extracting(RentalSummary::id, RentalSummary::plate, RentalSummary::drivenKm)
+                    .containsExactlyInAnyOrder(
+                            tuple(Fixtures.rentals.get(0).getId(), "W-123ER", 2_000.0),
+                            tuple(Fixtures.rentals.get(1).getId(), "P-VN3X", 400.0),
+                            tuple(Fixtures.rentals.get(2).getId(), "W-123ER", null)
+                    );
+        }
+
+        @Test
+        void car_summaries_include_cars_without_station() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findCarSummaries())
+                    .extracting(CarSummary::plate, CarSummary::stationId)
+                    .containsExactlyInAnyOrder(
+                            tuple("W-123ER", Fixtures.stations.get(0).getId()),
+                            tuple("P-VN3X", Fixtures.stations.get(0).getId()),
+                            tuple("KS-SHV234", Fixtures.stations.get(1).getId()),
+                            tuple("W-456UI", null)
+                    );
+        }
+
+        @Test
+        void station_summaries() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findStationSummaries())
+                    .extracting(StationSummary::title)
+                    .containsExactlyInAnyOrder("Wien Nord", "Wien Mitte", "St. Pölten");
+        }
+    }
+
+    @Nested
+    class Paging {
+
+        @Test
+        void finds_rentals_page_by_page() {
+            var service = new JpaService(factory);
+
+            var firstPage = service.findRentalsAfter(null, 2);
+            var secondPage = service.findRentalsAfter(firstPage.get(1).getId(), 2);
+
+            assertThat(firstPage)
+                    .hasSize(2);
+            assertThat(secondPage)
+                    .hasSize(1);
+            assertThat(Stream.concat(firstPage.stream(), secondPage.stream()))
+                    .containsExactlyInAnyOrderElementsOf(Fixtures.rentals);
+        }
+
+        @Test
+        void finds_cars_ordered_by_plate() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findCarsAfter("P-VN3X", 10))
+                    .extracting(Car::getPlate)
+                    .containsExactly("W-123ER", "W-456UI");
+        }
+
+        @Test
+        void returns_empty_page_after_last_station() {
+            var service = new JpaService(factory);
+            var stations = service.findStationsAfter(null, 10);
+
+            assertThat(stations)
+                    .containsExactlyInAnyOrderElementsOf(Fixtures.stations);
+            assertThat(service.findStationsAfter(stations.get(stations.size() - 1).getId(), 10))
+                    .isEmpty();
+        }
+
+        @Test
+        void streams_all_rentals() {
+            var service = new JpaService(factory);
+
+            try (var rentals = service.streamAllRentals()) {
+                assertThat(rentals)
+                        .containsExactlyInAnyOrderElementsOf(Fixtures.rentals);
+            }
+        }
+
+        @Test
+        void streams_rentals_beyond_one_fetch() {
+            var service = new JpaService(factory);
+            var beginning = LocalDateTime.of(2030, 1, 1, 0, 0);
+            var rentals = new ArrayList<Rental>();
+            for (int i = 0; i < 1_200; i++) {
+                var car = Fixtures.cars.get(1 + i % 2);
+                rentals.add(Rental.builder()
+                        .beginning(beginning.plusDays(2L * i))
+                        .end(beginning.plusDays(2L * i + 1))
+                        .car(car)
+                        .rentalStation(car.getLocation())
+                        .returnStation(car.getLocation())
+                        .drivenKm(10.0)
+                        .build());
+            }
+            assertThat(service.saveAllRentals(rentals).isCompleteSuccess())
+                    .isTrue();
+
+            try (var streamed = service.streamAllRentals()) {
+                assertThat(streamed)
+                        .hasSize(1_203)
+                        .allSatisfy(rental -> assertThat(rental.getCar().getPlate())
+                                .isNotNull());
+            }
+        }
+
+        @Test
+        void streams_all_cars() {
+            var service = new JpaService(factory);
+
+            try (var cars = service.streamAllCars()) {
+                assertThat(cars)
+                        .containsExactlyInAnyOrderElementsOf(Fixtures.cars);
+            }
+        }
+    }
+
+    @Nested
+    class CountingInventory {
+
+        @Test
+        void counts_cars_per_station() {
+            var service = new JpaService(factory);
+
+            assertThat(service.countCarsAt(Fixtures.stations.get(0)))
+                    .isEqualTo(2);
+            assertThat(service.countCarsAt(Fixtures.stations.get(1)))
+                    .isEqualTo(1);
+            assertThat(service.countCarsAt(Fixtures.stations.get(2)))
+                    .isZero();
+        }
+
+        @Test
+        void matches_cars_stationed_at() {
+            var service = new JpaService(factory);
+
+            assertThat(Fixtures.stations)
+                    .allSatisfy(station -> assertThat(service.countCarsAt(station))
+                            .isEqualTo(service.findCarsStationedAt(station).size()));
+        }
+
+        @Test
+        void moves_saved_car() {
+            var service = new JpaService(factory);
+            var car = Fixtures.cars.get(2);
+            car.setLocation(Fixtures.stations.get(2));
+
+            service.save(car);
+            service.save(new Car("L-NEW1", 0, "Zoe", Fixtures.stations.get(2)));
+
+            assertThat(service.inventorySnapshot())
+                    .containsEntry(Fixtures.stations.get(0).getId(), 2L)
+                    .containsEntry(Fixtures.stations.get(1).getId(), 0L)
+                    .containsEntry(Fixtures.stations.get(2).getId(), 2L);
+        }
+
+        @Test
+        void moves_cars_saved_in_batch() {
+            var service = new JpaService(factory);
+            var car = Fixtures.cars.get(3);
+            car.setLocation(Fixtures.stations.get(1));
+
+            service.saveAllCars(List.of(car, new Car("L-NEW1", 0, "Zoe", Fixtures.stations.get(1))));
+
+            assertThat(service.countCarsAt(Fixtures.stations.get(1)))
+                    .isEqualTo(3);
+        }
+
+        @Test
+        void moves_car_of_finished_rental() {
+            var service = new JpaService(factory);
+
+            service.finish(Fixtures.rentals.get(2), Fixtures.stations.get(2), 10);
+
+            assertThat(service.countCarsAt(Fixtures.stations.get(0)))
+                    .isEqualTo(1);
+            assertThat(service.countCarsAt(Fixtures.stations.get(2)))
+                    .isEqualTo(1);
+        }
+
+        @Test
+        void rebuilds_from_database() {
+            var service = new JpaService(factory);
+            new JpaService(factory).save(new Car("L-NEW1", 0, "Zoe", Fixtures.stations.get(2)));
+
+            service.rebuildInventory();
+
+            assertThat(service.countCarsAt(Fixtures.stations.get(2)))
+                    .isEqualTo(1);
+        }
+    }
+
+    @Nested
+    class RunningInTransaction {
+
+        @Test
+        void shares_one_session_and_transaction() {
+            var service = new JpaService(factory);
+            var statistics = factory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            service.inTransaction(unit -> {
+                var rental = unit.findRentalById(Fixtures.rentals.get(2).getId()).orElseThrow();
+                unit.finish(rental, Fixtures.stations.get(1), 10);
+                return unit.findCarsStationedAt(Fixtures.stations.get(1));
+            });
+
+            assertThat(statistics.getSessionOpenCount())
+                    .isOne();
+            assertThat(statistics.getTransactionCount())
+                    .isOne();
+        }
+
+        @Test
+        void sees_own_changes() {
+            var service = new JpaService(factory);
+
+            var result = service.inTransaction(unit -> {
+                var station = unit.save(new Station(null, "Linz"));
+                unit.save(new Car("L-NEW1", 0, "Zoe", station));
+                return unit.findCarsStationedAt(station);
+            });
+
+            assertThat(result)
+                    .extracting(Car::getPlate)
+                    .containsExactly("L-NEW1");
+            assertThat(service.findAllCars())
+                    .extracting(Car::getPlate)
+                    .contains("L-NEW1");
+        }
+
+        @Test
+        void returns_same_instance_within_unit() {
+            var service = new JpaService(factory);
+            long id = Fixtures.rentals.get(0).getId();
+
+            service.inTransaction(unit -> {
+                assertThat(unit.findRentalById(id).orElseThrow())
+                        .isSameAs(unit.findRentalById(id).orElseThrow());
+                return null;
+            });
+        }
+
+        @Test
+        void rolls_back_all_operations_on_failure() {
+            var service = new JpaService(factory);
+            var beginning = LocalDateTime.of(2023, 1, 1, 9, 0);
+
+            assertThatThrownBy(() -> service.inTransaction(unit -> {
+                unit.save(new Station(null, "Linz"));
+                unit.save(Rental.builder()
+                        .beginning(beginning)
+                        .car(Fixtures.cars.get(1))
+                        .rentalStation(Fixtures.stations.get(0))
+                        .build());
+                throw new IllegalStateException();
+            }))
+                    .isInstanceOf(IllegalStateException.class);
+
+            assertThat(service.findAllStations())
+                    .extracting(Station::getTitle)
+                    .doesNotContain("Linz");
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), beginning, beginning.plusHours(1)))
+                    .extracting(Car::getPlate)
+                    .contains("P-VN3X");
+            assertThat(service.save(Rental.builder()
+                    .beginning(beginning)
+                    .car(Fixtures.cars.get(1))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .build()).getId())
+                    .isNotNull();
+        }
+
+        @Test
+        void restores_inventory_on_failure() {
+            var service = new JpaService(factory);
+            var car = Fixtures.cars.get(2);
+            car.setLocation(Fixtures.stations.get(2));
+
+            assertThatThrownBy(() -> service.inTransaction(unit -> {
+                unit.save(car);
+                throw new IllegalStateException();
+            }))
+                    .isInstanceOf(IllegalStateException.class);
+
+            assertThat(service.countCarsAt(Fixtures.stations.get(1)))
+                    .isOne();
+            assertThat(service.countCarsAt(Fixtures.stations.get(2)))
+                    .isZero();
+        }
+    }
+
+    @Nested
+    class FindingAvailableCars {
+
+        @Test
+        void excludes_booked_cars() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(2022, 1, 1, 9, 0), LocalDateTime.of(2022, 1, 1, 17, 0)))
+                    .extracting(Car::getPlate)
+                    .containsExactly("P-VN3X");
+        }
+
+        @Test
+        void only_contains_cars_of_station() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(1), LocalDateTime.of(2022, 1, 1, 9, 0), LocalDateTime.of(2022, 1, 1, 17, 0)))
+                    .extracting(Car::getPlate)
+                    .containsExactly("KS-SHV234");
+            assertThat(service.findAvailableCars(Fixtures.stations.get(2), LocalDateTime.of(2022, 1, 1, 9, 0), null))
+                    .isEmpty();
+        }
+
+        @Test
+        void checks_hours_shared_with_a_rental_exactly() {
+            var service = new JpaService(factory);
+            service.save(Rental.builder()
+                    .beginning(LocalDateTime.of(2022, 2, 1, 9, 0))
+                    .end(LocalDateTime.of(2022, 2, 1, 10, 15))
+                    .car(Fixtures.cars.get(1))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .returnStation(Fixtures.stations.get(0))
+                    .drivenKm(20.0)
+                    .build());
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(2022, 2, 1, 10, 0), LocalDateTime.of(2022, 2, 1, 11, 0)))
+                    .isEmpty();
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(2022, 2, 1, 10, 15), LocalDateTime.of(2022, 2, 1, 11, 0)))
+                    .extracting(Car::getPlate)
+                    .containsExactly("P-VN3X");
+        }
+
+        @Test
+        void excludes_car_with_open_rental_from_its_beginning() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(2022, 1, 2, 10, 0), LocalDateTime.of(2022, 1, 2, 23, 30)))
+                    .extracting(Car::getPlate)
+                    .containsExactlyInAnyOrder("W-123ER", "P-VN3X");
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(2023, 1, 1, 0, 0), null))
+                    .extracting(Car::getPlate)
+                    .containsExactly("P-VN3X");
+        }
+
+        @Test
+        void includes_car_of_finished_rental() {
+            var service = new JpaService(factory);
+
+            service.finish(Fixtures.rentals.get(2), Fixtures.stations.get(0), 10);
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.now().plusDays(1), null))
+                    .extracting(Car::getPlate)
+                    .containsExactlyInAnyOrder("W-123ER", "P-VN3X");
+        }
+
+        @Test
+        void handles_rentals_before_1970() {
+            new JpaService(factory).save(Rental.builder()
+                    .beginning(LocalDateTime.of(1965, 5, 1, 8, 0))
+                    .end(LocalDateTime.of(1965, 5, 3, 8, 0))
+                    .car(Fixtures.cars.get(1))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .returnStation(Fixtures.stations.get(0))
+                    .drivenKm(50.0)
+                    .build());
+            var service = new JpaService(factory);
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(1965, 5, 2, 0, 0), LocalDateTime.of(1965, 5, 2, 1, 0)))
+                    .extracting(Car::getPlate)
+                    .containsExactly("W-123ER");
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(1965, 5, 3, 8, 0), LocalDateTime.of(1965, 5, 3, 9, 0)))
+                    .extracting(Car::getPlate)
+                    .containsExactlyInAnyOrder("W-123ER", "P-VN3X");
+        }
+
+        @Test
+        void handles_rentals_beyond_the_hour_range() {
+            var beginning = LocalDateTime.of(300_000, 1, 1, 0, 0);
+            new JpaService(factory).save(Rental.builder()
+                    .beginning(beginning)
+                    .end(beginning.plusDays(1))
+                    .car(Fixtures.cars.get(1))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .returnStation(Fixtures.stations.get(0))
+                    .drivenKm(50.0)
+                    .build());
+            var service = new JpaService(factory);
+
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), beginning.plusHours(1), beginning.plusHours(2)))
+                    .isEmpty();
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), beginning.plusDays(2), beginning.plusDays(3)))
+                    .extracting(Car::getPlate)
+                    .containsExactly("P-VN3X");
+        }
+
+        @Test
+        void rejects_empty_window() {
+            var service = new JpaService(factory);
+            var time = LocalDateTime.of(2022, 1, 1, 9, 0);
+
+            assertThatThrownBy(() -> service.findAvailableCars(Fixtures.stations.get(0), time, time))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
     @Nested
     class FindingRentalById {
 
@@ -115,6 +636,39 @@ class JpaServiceTest {
                     .hasNoNullFieldsOrPropertiesExcept("returnStation", "end", "drivenKm");
         }
 
+        @Test
+        void loads_only_summary_when_requested() {
+            var service = new JpaService(factory);
+
+            var queried = service.findRentalById(Fixtures.rentals.get(0).getId(), RentalGraph.SUMMARY);
+
+            assertThat(queried)
+                    .get()
+                    .isEqualTo(Fixtures.rentals.get(0))
+                    .extracting(Rental::getCar)
+                    .matches(car -> !Hibernate.isInitialized(car));
+        }
+
+        @Test
+        void loads_all_rentals_with_related_objects() {
+            var service = new JpaService(factory);
+
+            assertThat(service.findAllRentals(RentalGraph.FULL))
+                    .allMatch(rental -> Hibernate.isInitialized(rental.getCar()))
+                    .allMatch(rental -> Hibernate.isInitialized(rental.getRentalStation()));
+        }
+
+        @Test
+        void finishes_rental_loaded_as_summary() {
+            var service = new JpaService(factory);
+            var rental = service.findRentalById(Fixtures.rentals.get(2).getId(), RentalGraph.SUMMARY).orElseThrow();
+
+            var finished = service.finish(rental, Fixtures.stations.get(1), 10);
+
+            assertThat(finished.getCar().getMileage())
+                    .isEqualTo(133.0);
+        }
+
         @Test
         void returns_empty_for_unknown_id() {
             var service = new JpaService(factory);
@@ -174,6 +728,117 @@ class JpaServiceTest {
                     .isEqualTo(saved);
         }
 
+        @Test
+        void fails_for_car_booked_elsewhere_after_startup() {
+            var service = new JpaService(factory);
+            var other = new JpaService(factory);
+            var car = other.save(new Car("L-NEW1", 0, "Zoe", Fixtures.stations.get(2)));
+            other.save(Rental.builder()
+                    .beginning(LocalDateTime.of(2020, 1, 1, 0, 0))
+                    .car(car)
+                    .rentalStation(Fixtures.stations.get(2))
+                    .build());
+
+            assertThatThrownBy(() -> service.save(Rental.builder()
+                    .beginning(LocalDateTime.of(2021, 1, 1, 0, 0))
+                    .end(LocalDateTime.of(2021, 1, 2, 0, 0))
+                    .car(car)
+                    .rentalStation(Fixtures.stations.get(2))
+                    .returnStation(Fixtures.stations.get(2))
+                    .drivenKm(10.0)
+                    .build()))
+                    .isInstanceOf(CarNotAvailableException.class);
+        }
+
+        @Test
+        void checks_bookings_before_horizon_in_database() {
+            var clock = new MovingClock(LocalDateTime.of(2022, 6, 2, 0, 0));
+            var service = new JpaService(factory, null, clock);
+            var car = Fixtures.cars.get(1);
+            service.save(rental(car, LocalDateTime.of(2022, 6, 1, 0, 0), LocalDateTime.of(2022, 6, 2, 0, 0)));
+            clock.set(LocalDateTime.of(2022, 9, 1, 0, 0));
+            // writing the car drops the June rental from the index
+            service.save(rental(car, LocalDateTime.of(2022, 9, 5, 0, 0), LocalDateTime.of(2022, 9, 6, 0, 0)));
+
+            assertThatThrownBy(() -> service.save(rental(car, LocalDateTime.of(2022, 6, 1, 12, 0), LocalDateTime.of(2022, 6, 1, 13, 0))))
+                    .isInstanceOf(CarNotAvailableException.class);
+            assertThat(service.findAvailableCars(Fixtures.stations.get(0), LocalDateTime.of(2022, 6, 1, 12, 0), LocalDateTime.of(2022, 6, 1, 13, 0)))
+                    .extracting(Car::getPlate)
+                    .doesNotContain(car.getPlate());
+            assertThat(service.saveAllRentals(List.of(rental(car, LocalDateTime.of(2022, 6, 1, 18, 0), LocalDateTime.of(2022, 6, 1, 19, 0)))).failed())
+                    .hasSize(1);
+        }
+
+        private static Rental rental(Car car, LocalDateTime beginning, LocalDateTime end) {
+            return Rental.builder()
+                    .beginning(beginning)
+                    .end(end)
+                    .car(car)
+                    .rentalStation(car.getLocation())
+                    .returnStation(car.getLocation())
+                    .drivenKm(10.0)
+                    .build();
+        }
+
+        @Test
+        void works_for_back_to_back_rentals() {
+            var service = new JpaService(factory);
+            LocalDateTime time = LocalDateTime.of(2020, 1, 1, 0, 0);
+            var existingRental = Rental.builder()
+                    .beginning(time)
+                    .end(time.plusDays(2))
+                    .car(carWithoutRentals)
+                    .rentalStation(Fixtures.stations.get(0))
+                    .returnStation(Fixtures.stations.get(0))
+                    .drivenKm(10.0)
+                    .build();
+            service.save(existingRental);
+            var followingRental = Rental.builder()
+                    .beginning(time.plusDays(2))
+                    .car(carWithoutRentals)
+                    .rentalStation(Fixtures.stations.get(0))
+                    .build();
+
+            assertThat(service.save(followingRental))
+                    .extracting(Rental::getId)
+                    .isNotNull();
+        }
+
+        @Test
+        void books_car_once_when_booked_concurrently() throws Exception {
+            var service = new JpaService(factory);
+            var time = LocalDateTime.of(2020, 1, 1, 0, 0);
+            var bookings = new ArrayList<Callable<Rental>>();
+            for (int i = 0; i < THREADS; i++) {
+                var rental = Rental.builder()
+                        .beginning(time.plusHours(i))
+                        .end(time.plusDays(2))
+                        .car(carWithoutRentals)
+                        .rentalStation(Fixtures.stations.get(0))
+                        .returnStation(Fixtures.stations.get(0))
+                        .drivenKm(10.0)
+                        .build();
+                bookings.add(() -> service.save(rental));
+            }
+
+            int booked = 0;
+            for (var result : runConcurrently(bookings)) {
+                try {
+                    result.get();
+                    booked++;
+                }
+                catch (ExecutionException e) {
+                    assertThat(e.getCause())
+                            .isInstanceOf(CarNotAvailableException.class);
+                }
+            }
+            assertThat(booked)
+                    .isOne();
+            assertThat(service.findAllRentals(RentalGraph.SUMMARY))
+                    .filteredOn(rental -> rental.getCar().getPlate().equals(carWithoutRentals.getPlate()))
+                    .hasSize(1);
+        }
+
         @Test
         void fails_if_end_before_begin() {
             var service = new JpaService(factory);
@@ -306,6 +971,114 @@ class JpaServiceTest {
         }
     }
 
+    @Nested
+    class SavingInBatches {
+
+        @Test
+        void saves_all_stations() {
+            var service = new JpaService(factory);
+            var stations = List.of(new Station(null, "Linz"), new Station(null, "Graz"));
+
+            var result = service.saveAllStations(stations);
+
+            assertThat(result.isCompleteSuccess())
+                    .isTrue();
+            assertThat(service.findAllStations())
+                    .containsAll(result.saved());
+        }
+
+        @Test
+        void inserts_new_and_updates_existing_cars() {
+            var service = new JpaService(factory);
+            var existing = Fixtures.cars.get(3);
+            existing.setModel("Golf");
+            var cars = List.of(existing, new Car("L-NEW1", 0, "Zoe", Fixtures.stations.get(2)));
+
+            var result = service.saveAllCars(cars);
+
+            assertThat(result.saved())
+                    .hasSize(2);
+            assertThat(service.findAllCars())
+                    .hasSize(5)
+                    .filteredOn(car -> car.getPlate().equals(existing.getPlate()))
+                    .extracting(Car::getModel)
+                    .containsExactly("Golf");
+        }
+
+        @Test
+        void updates_existing_car_without_version() {
+            var service = new JpaService(factory);
+            var plate = Fixtures.cars.get(2).getPlate();
+
+            var result = service.saveAllCars(List.of(new Car(plate, 5_000, "C5", Fixtures.stations.get(2))));
+
+            assertThat(result.isCompleteSuccess())
+                    .isTrue();
+            assertThat(service.findAllCars())
+                    .hasSize(4)
+                    .filteredOn(car -> car.getPlate().equals(plate))
+                    .extracting(Car::getModel, Car::getMileage)
+                    .containsExactly(tuple("C5", 5_000.0));
+            assertThat(service.countCarsAt(Fixtures.stations.get(2)))
+                    .isOne();
+        }
+
+        @Test
+        void reports_invalid_cars() {
+            var service = new JpaService(factory);
+            var invalid = new Car("W1", 0, "Too short", null);
+
+            var result = service.saveAllCars(List.of(invalid, new Car("L-NEW1", 0, "Zoe", null)));
+
+            assertThat(result.failed())
+                    .extracting(BatchResult.Failure::item)
+                    .containsExactly(invalid);
+            assertThat(result.saved())
+                    .extracting(Car::getPlate)
+                    .containsExactly("L-NEW1");
+        }
+
+        @Test
+        void rejects_rentals_overlapping_existing_or_batch_rentals() {
+            var service = new JpaService(factory);
+            LocalDateTime time = LocalDateTime.of(2020, 1, 1, 0, 0);
+            var first = Rental.builder()
+                    .beginning(time)
+                    .end(time.plusDays(2))
+                    .car(Fixtures.cars.get(2))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .returnStation(Fixtures.stations.get(0))
+                    .drivenKm(10.0)
+                    .build();
+            var overlappingBatch = Rental.builder()
+                    .beginning(time.plusDays(1))
+                    .end(time.plusDays(3))
+                    .car(Fixtures.cars.get(2))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .returnStation(Fixtures.stations.get(0))
+                    .drivenKm(10.0)
+                    .build();
+            var overlappingExisting = Rental.builder()
+                    .beginning(LocalDateTime.of(2022, 1, 1, 0, 0))
+                    .car(Fixtures.cars.get(0))
+                    .rentalStation(Fixtures.stations.get(0))
+                    .build();
+
+            var result = service.saveAllRentals(List.of(first, overlappingBatch, overlappingExisting));
+
+            assertThat(result.saved())
+                    .containsExactly(first);
+            assertThat(result.failed())
+                    .extracting(BatchResult.Failure::item)
+                    .containsExactlyInAnyOrder(overlappingBatch, overlappingExisting);
+            assertThat(result.failed())
+                    .extracting(BatchResult.Failure::cause)
+                    .allMatch(CarNotAvailableException.class::isInstance);
+            assertThat(service.findAllRentals())
+                    .hasSize(Fixtures.rentals.size() + 1);
+        }
+    }
+
     @Nested
     class FinishingRentals {
 
@@ -376,6 +1149,105 @@ class JpaServiceTest {
                     service.finish(saved, Fixtures.stations.get(0), drivenKm));
         }
 
+        @Nested
+        class Concurrently {
+
+            @Test
+            void loses_no_mileage_updates() throws Exception {
+                var service = new JpaService(factory);
+                var cars = service.saveAllCars(IntStream.range(0, THREADS)
+                        .mapToObj(i -> new Car("W-RACE%02d".formatted(i), 100, "Model T", Fixtures.stations.get(0)))
+                        .toList()).saved();
+                var booked = service.saveAllRentals(cars.stream()
+                        .map(car -> Rental.builder()
+                                .beginning(LocalDateTime.of(2020, 1, 1, 0, 0))
+                                .car(car)
+                                .rentalStation(Fixtures.stations.get(0))
+                                .build())
+                        .toList());
+                assertThat(booked.isCompleteSuccess())
+                        .isTrue();
+                var before = service.countCarsAt(Fixtures.stations.get(1));
+
+                var results = runConcurrently(booked.saved().stream()
+                        .map(rental -> (Callable<Rental>) () -> service.finish(rental, Fixtures.stations.get(1), 1.5))
+                        .toList());
+
+                for (var result : results)
+                    result.get();
+                assertThat(service.findAllCars())
+                        .filteredOn(saved -> saved.getPlate().startsWith("W-RACE"))
+                        .hasSize(THREADS)
+                        .extracting(Car::getMileage)
+                        .containsOnly(101.5);
+                assertThat(service.countCarsAt(Fixtures.stations.get(1)))
+                        .isEqualTo(before + THREADS);
+            }
+
+            @Test
+            void finishes_same_rental_once() throws Exception {
+                var service = new JpaService(factory);
+                var car = service.save(new Car("W-RACE2", 100, "Model T", Fixtures.stations.get(0)));
+                var rental = service.save(Rental.builder()
+                        .beginning(LocalDateTime.of(2020, 1, 1, 0, 0))
+                        .car(car)
+                        .rentalStation(Fixtures.stations.get(0))
+                        .build());
+
+                var results = runConcurrently(Collections.nCopies(THREADS,
+                        () -> service.finish(rental, Fixtures.stations.get(1), 10)));
+
+                int finished = 0;
+                for (var result : results) {
+                    try {
+                        result.get();
+                        finished++;
+                    }
+                    catch (ExecutionException e) {
+                        assertThat(e.getCause())
+                                .isInstanceOf(IllegalArgumentException.class);
+                    }
+                }
+                assertThat(finished)
+                        .isOne();
+                assertThat(service.findCarsStationedAt(Fixtures.stations.get(1)))
+                        .filteredOn(saved -> saved.getPlate().equals("W-RACE2"))
+                        .extracting(Car::getMileage)
+                        .containsExactly(110.0);
+            }
+
+            @Test
+            void rejects_bookings_inside_rental_being_finished() throws Exception {
+                var service = new JpaService(factory);
+                var car = service.save(new Car("W-RACE3", 100, "Model T", Fixtures.stations.get(0)));
+                var rental = service.save(Rental.builder()
+                        .beginning(LocalDateTime.of(2020, 1, 1, 0, 0))
+                        .car(car)
+                        .rentalStation(Fixtures.stations.get(0))
+                        .build());
+                var tasks = new ArrayList<Callable<Rental>>();
+                tasks.add(() -> service.finish(rental, Fixtures.stations.get(1), 10));
+                for (int i = 1; i < THREADS; i++) {
+                    var beginning = LocalDateTime.of(2020, 6, 1, 0, 0).plusDays(i);
+                    tasks.add(() -> service.save(Rental.builder()
+                            .beginning(beginning)
+                            .end(beginning.plusHours(1))
+                            .car(car)
+                            .rentalStation(Fixtures.stations.get(0))
+                            .returnStation(Fixtures.stations.get(0))
+                            .drivenKm(1.0)
+                            .build()));
+                }
+
+                var results = runConcurrently(tasks);
+
+                results.get(0).get();
+                for (var result : results.subList(1, results.size()))
+                    assertThatThrownBy(result::get)
+                            .hasCauseInstanceOf(CarNotAvailableException.class);
+            }
+        }
+
         @Nested
         class Updates {
 
@@ -0,0 +1,218 @@
+package service;
+
+import domain.Car;
+import domain.Rental;
+import domain.RentalGraph;
+import domain.Station;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import persistence.Fixtures;
+import persistence.QueryCounter;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static persistence.QueryCounter.assertQueryCount;
+
+// the same budgets hold for the fixtures and for 10k rentals, a call whose statements grow with the data fails both
+class QueryBudgetTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+    private static final LocalDateTime FROM = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime UPCOMING = LocalDateTime.of(2029, 1, 1, 0, 0);
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    // what the calls work on, taken from the data of each scale
+    record Sample(Station station, Car car, long rentalId, Rental openRental) {
+    }
+
+    record Budget(String method, int statements, BiFunction<Service, Sample, Object> call) {
+
+        @Override
+        public String toString() {
+            return method + " <= " + statements;
+        }
+    }
+
+    // inserts may take one more statement when the pooled sequence hands out its next block of ids
+    static Stream<Budget> budgets() {
+        return Stream.of(
+                new Budget("save(Station)", 2, (service, sample) -> service.save(new Station(null, name()))),
+                new Budget("save(Car)", 2, (service, sample) -> service.save(new Car(name(), 0, "Zoe", sample.station()))),
+                new Budget("save(Rental)", 2, (service, sample) -> service.save(booking(sample))),
+                new Budget("saveAllStations", 2, (service, sample) -> service.saveAllStations(List.of(new Station(null, name()), new Station(null, name())))),
+                new Budget("saveAllCars", 2, (service, sample) -> service.saveAllCars(List.of(new Car(name(), 0, "Zoe", sample.station()), new Car(name(), 0, "Zoe", sample.station())))),
+                new Budget("saveAllRentals", 2, (service, sample) -> service.saveAllRentals(List.of(booking(sample), booking(sample)))),
+                new Budget("findAllStations", 1, (service, sample) -> service.findAllStations()),
+                new Budget("findAllCars", 1, (service, sample) -> service.findAllCars()),
+                new Budget("findAllRentals(FULL)", 1, (service, sample) -> service.findAllRentals(RentalGraph.FULL)),
+                new Budget("findAllRentals(SUMMARY)", 1, (service, sample) -> service.findAllRentals(RentalGraph.SUMMARY)),
+                new Budget("findStationSummaries", 1, (service, sample) -> service.findStationSummaries()),
+                new Budget("findCarSummaries", 1, (service, sample) -> service.findCarSummaries()),
+                new Budget("findRentalSummaries", 1, (service, sample) -> service.findRentalSummaries()),
+                new Budget("findStationsAfter", 1, (service, sample) -> service.findStationsAfter(null, 100)),
+                new Budget("findCarsAfter", 1, (service, sample) -> service.findCarsAfter(null, 100)),
+                new Budget("findRentalsAfter", 1, (service, sample) -> service.findRentalsAfter(null, 100)),
+                new Budget("streamAllStations", 1, (service, sample) -> consume(service.streamAllStations())),
+                new Budget("streamAllCars", 1, (service, sample) -> consume(service.streamAllCars())),
+                new Budget("streamAllRentals", 1, (service, sample) -> consume(service.streamAllRentals())),
+                new Budget("findRentalById(FULL)", 1, (service, sample) -> service.findRentalById(sample.rentalId(), RentalGraph.FULL)),
+                new Budget("findRentalById(SUMMARY)", 1, (service, sample) -> service.findRentalById(sample.rentalId(), RentalGraph.SUMMARY)),
+                new Budget("findCarsStationedAt", 1, (service, sample) -> service.findCarsStationedAt(sample.station())),
+                new Budget("findAvailableCars", 1, (service, sample) -> service.findAvailableCars(sample.station(), UPCOMING, UPCOMING.plusDays(7))),
+                // one more to read the history the availability index no longer holds
+                new Budget("findAvailableCars(past)", 2, (service, sample) -> service.findAvailableCars(sample.station(), FROM, TO)),
+                new Budget("finish", 4, (service, sample) -> service.finish(sample.openRental(), sample.station(), 10)),
+                new Budget("countCarsAt", 0, (service, sample) -> service.countCarsAt(sample.station())),
+                new Budget("inventorySnapshot", 0, (service, sample) -> service.inventorySnapshot()),
+                new Budget("rebuildInventory", 1, (service, sample) -> {
+                    service.rebuildInventory();
+                    return null;
+                }),
+                new Budget("countRentalsPerStation", 1, (service, sample) -> service.countRentalsPerStation(FROM, TO)),
+                new Budget("findMileagePerCar", 1, (service, sample) -> service.findMileagePerCar(FROM, TO)),
+                new Budget("findMileagePerMonth", 1, (service, sample) -> service.findMileagePerMonth(FROM, TO)),
+                new Budget("findOccupancy", 1, (service, sample) -> service.findOccupancy(FROM, TO)),
+                new Budget("averageRentalDuration", 1, (service, sample) -> service.averageRentalDuration(FROM, TO)),
+                new Budget("inTransaction", 2, (service, sample) -> service.inTransaction(unit -> {
+                    var rental = unit.findRentalById(sample.rentalId()).orElseThrow();
+                    return unit.findCarsStationedAt(rental.getRentalStation());
+                })),
+                new Budget("cacheStatistics", 0, (service, sample) -> service.cacheStatistics()),
+                new Budget("poolStatistics", 0, (service, sample) -> service.poolStatistics())
+        );
+    }
+
+    private static String name() {
+        return "Q-%05d".formatted(NAMES.incrementAndGet());
+    }
+
+    private static Rental booking(Sample sample) {
+        var beginning = LocalDateTime.of(2030, 1, 1, 0, 0).plusDays(NAMES.incrementAndGet());
+        return Rental.builder()
+                .car(sample.car())
+                .beginning(beginning)
+                .end(beginning.plusHours(1))
+                .drivenKm(10.0)
+                .rentalStation(sample.station())
+                .returnStation(sample.station())
+                .build();
+    }
+
+    private static long consume(Stream<?> stream) {
+        try (stream) {
+            return stream.count();
+        }
+    }
+
+    private static EntityManagerFactory createFactory() {
+        return Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME, new HashMap<>(QueryCounter.properties()));
+    }
+
+    private static void check(Service service, Sample sample, Budget budget) {
+        assertQueryCount(budget.statements(), () -> budget.call().apply(service, sample));
+    }
+
+    @Nested
+    class AtFixtureScale {
+
+        private EntityManagerFactory factory;
+
+        @BeforeEach
+        void setupDatabase() {
+            factory = createFactory();
+            Fixtures.save(factory);
+        }
+
+        @AfterEach
+        void closeFactory() {
+            factory.close();
+        }
+
+        @ParameterizedTest
+        @MethodSource("service.QueryBudgetTest#budgets")
+        void stays_within_budget(Budget budget) {
+            var sample = new Sample(Fixtures.stations.get(0), Fixtures.cars.get(1), Fixtures.rentals.get(0).getId(), Fixtures.rentals.get(2));
+            check(new JpaService(factory), sample, budget);
+        }
+
+        @Test
+        void fails_over_budget() {
+            var service = new JpaService(factory);
+
+            assertThatThrownBy(() -> assertQueryCount(0, service::findAllStations))
+                    .isInstanceOf(AssertionError.class)
+                    .hasMessageContaining("select");
+        }
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class AtSyntheticScale {
+
+        private static final int STATIONS = 100;
+        private static final int CARS = 1_000;
+        private static final int RENTALS = 10_000;
+
+        private EntityManagerFactory factory;
+        private Sample sample;
+
+        @BeforeAll
+        void setupDatabase() {
+            factory = createFactory();
+            var service = new JpaService(factory);
+            var stations = service.saveAllStations(IntStream.range(0, STATIONS)
+                    .mapToObj(i -> new Station(null, "Station " + i))
+                    .toList()).saved();
+            var cars = service.saveAllCars(IntStream.range(0, CARS)
+                    .mapToObj(i -> new Car("S-%05d".formatted(i), 0, "Model " + i % 10, stations.get(i % STATIONS)))
+                    .toList()).saved();
+            var rentals = new ArrayList<Rental>(RENTALS);
+            for (int i = 0; i < RENTALS; i++) {
+                var car = cars.get(i % CARS);
+                var beginning = FROM.plusDays(2L * (i / CARS));
+                var builder = Rental.builder()
+                        .car(car)
+                        .beginning(beginning)
+                        .rentalStation(car.getLocation());
+                if (i < RENTALS - 1)
+                    builder.end(beginning.plusDays(1))
+                            .drivenKm(100.0)
+                            .returnStation(car.getLocation());
+                rentals.add(builder.build());
+            }
+            var saved = service.saveAllRentals(rentals).saved();
+            var open = saved.get(saved.size() - 1);
+            sample = new Sample(open.getCar().getLocation(), cars.get(0), saved.get(0).getId(), open);
+        }
+
+        @AfterAll
+        void closeFactory() {
+            factory.close();
+        }
+
+        @ParameterizedTest
+        @MethodSource("service.QueryBudgetTest#budgets")
+        void stays_within_budget(Budget budget) {
+            check(new JpaService(factory), sample, budget);
+        }
+    }
+}
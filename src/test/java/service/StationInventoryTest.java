@@ -0,0 +1,63 @@
+package service;
+
+import domain.projections.CarSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StationInventoryTest {
+
+    private static final List<CarSummary> CARS = List.of(
+            new CarSummary("W-1", "X1", 0, 1L),
+            new CarSummary("W-2", "X1", 0, 1L),
+            new CarSummary("W-3", "X1", 0, 2L));
+
+    @Test
+    void rebuilds_from_cars() {
+        var inventory = new StationInventory();
+        inventory.move("W-9", 3L);
+
+        inventory.rebuild(() -> CARS);
+
+        assertThat(inventory.snapshot())
+                .containsOnlyKeys(1L, 2L)
+                .containsEntry(1L, 2L)
+                .containsEntry(2L, 1L);
+    }
+
+    @Test
+    void keeps_moves_made_while_loading() {
+        var inventory = new StationInventory();
+
+        inventory.rebuild(() -> {
+            // the cars were read before the move was committed
+            inventory.move("W-1", 2L);
+            return CARS;
+        });
+
+        assertThat(inventory.count(1L))
+                .isOne();
+        assertThat(inventory.count(2L))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void keeps_counts_when_loading_fails() {
+        var inventory = new StationInventory();
+        inventory.rebuild(() -> CARS);
+
+        assertThatThrownBy(() -> inventory.rebuild(() -> {
+            throw new IllegalStateException();
+        }))
+                .isInstanceOf(IllegalStateException.class);
+        inventory.move("W-3", 1L);
+
+        assertThat(inventory.count(1L))
+                .isEqualTo(3);
+        assertThat(inventory.count(2L))
+                .isZero();
+    }
+}
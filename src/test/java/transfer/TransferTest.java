@@ -0,0 +1,153 @@
+package transfer;
+
+import domain.Car;
+import domain.Rental;
+import domain.Station;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import persistence.Fixtures;
+import service.JpaService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TransferTest {
+
+    private static final String PERSISTENCE_UNIT_NAME = "car-rental";
+
+    private EntityManagerFactory factory;
+    private EntityManagerFactory target;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeAll
+    private static void setLogLevel() {
+        Logger.getLogger("org.hibernate").setLevel(Level.SEVERE);
+    }
+
+    @BeforeEach
+    void setupDatabases() {
+        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        Fixtures.save(factory);
+        // a second database, with its own second-level cache
+        target = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME, Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:car-rental-import"));
+    }
+
+    @AfterEach
+    void closeFactories() {
+        target.close();
+        factory.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void copies_all_data_into_another_database(Format format) throws IOException {
+        var exported = new ArrayList<Long>();
+        new Exporter(new JpaService(factory)).exportAll(directory, format, exported::add);
+        var service = new JpaService(target);
+
+        var result = new Importer(service).importAll(directory, format, progress -> {});
+
+        assertThat(exported)
+                .containsExactly(3L, 4L, 3L);
+        assertThat(result)
+                .isEqualTo(new ImportResult(10, 0));
+        assertThat(service.findAllStations())
+                .extracting(Station::getTitle)
+                .containsExactlyInAnyOrder("Wien Nord", "Wien Mitte", "St. Pölten");
+        assertThat(service.findAllCars())
+                .extracting(Car::getPlate, Car::getMileage, Car::getModel, car -> car.getLocation() == null ? null : car.getLocation().getTitle())
+                .containsExactlyInAnyOrder(
+                        tuple("W-123ER", 123.0, "X1", "Wien Nord"),
+                        tuple("P-VN3X", 0.0, "Model X", "Wien Nord"),
+                        tuple("KS-SHV234", 1_234.0, "C4", "Wien Mitte"),
+                        tuple("W-456UI", 10_234.0, "Passat", null)
+                );
+        assertThat(service.findAllRentals())
+                .extracting(rental -> rental.getCar().getPlate(), Rental::getBeginning, Rental::getEnd, Rental::getDrivenKm,
+                        rental -> rental.getReturnStation() == null ? null : rental.getReturnStation().getTitle())
+                .containsExactlyInAnyOrderElementsOf(Fixtures.rentals.stream()
+                        .map(rental -> tuple(rental.getCar().getPlate(), rental.getBeginning(), rental.getEnd(), rental.getDrivenKm(),
+                                rental.getReturnStation() == null ? null : rental.getReturnStation().getTitle()))
+                        .toList());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void keeps_special_characters(Format format) throws IOException {
+        var source = new JpaService(factory);
+        source.save(new Station(null, "Linz, \"Hbf\"\nAusgang Süd"));
+        source.save(new Station(null, ""));
+        new Exporter(source).exportAll(directory, format, progress -> {});
+        var service = new JpaService(target);
+
+        new Importer(service).importAll(directory, format, progress -> {});
+
+        assertThat(service.findAllStations())
+                .extracting(Station::getTitle)
+                .contains("Linz, \"Hbf\"\nAusgang Süd", "");
+    }
+
+    @Test
+    void keeps_second_level_caches_of_databases_apart() {
+        var source = new JpaService(factory);
+        var service = new JpaService(target);
+        source.findAllCars();
+
+        service.save(new Car("W-123ER", 7, "Zoe", null));
+
+        assertThat(service.findAllCars())
+                .extracting(Car::getPlate, Car::getMileage)
+                .containsExactly(tuple("W-123ER", 7.0));
+        assertThat(source.findAllCars())
+                .extracting(Car::getMileage)
+                .contains(123.0);
+    }
+
+    @Test
+    void counts_rentals_of_unknown_cars_as_failed() throws IOException {
+        var file = directory.resolve("rentals.csv");
+        new Exporter(new JpaService(factory)).exportRentals(file, Format.CSV, progress -> {});
+
+        var result = new Importer(new JpaService(target)).importRentals(file, Format.CSV, progress -> {});
+
+        assertThat(result)
+                .isEqualTo(new ImportResult(0, 3));
+    }
+
+    @Test
+    void rejects_file_of_other_entity() throws IOException {
+        var file = directory.resolve("cars.csv");
+        new Exporter(new JpaService(factory)).exportCars(file, Format.CSV, progress -> {});
+
+        assertThatThrownBy(() -> new Importer(new JpaService(target)).importStations(file, Format.CSV, progress -> {}))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejects_truncated_binary_file() throws IOException {
+        var file = directory.resolve("cars.bin");
+        new Exporter(new JpaService(factory)).exportCars(file, Format.BINARY, progress -> {});
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThatThrownBy(() -> new Importer(new JpaService(target)).importCars(file, Format.BINARY, progress -> {}))
+                .isInstanceOf(IOException.class);
+    }
+}